@@ -0,0 +1,77 @@
+package com.shopapplication.benchmark;
+
+import com.shopapplication.dto.AdminDashboardStats;
+import com.shopapplication.models.Order;
+import com.shopapplication.models.OrderStatus;
+import com.shopapplication.models.User;
+import com.shopapplication.repository.OrderRepository;
+import com.shopapplication.service.AdminService;
+import com.shopapplication.service.DashboardAggregateStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdminService.getDashboardStats over orderCount orders spread across the last 60 days
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminDashboardBenchmark {
+
+    private static final int USER_COUNT = 100;
+
+    @Param({"1000", "10000"})
+    private int orderCount;
+
+    private ConfigurableApplicationContext context;
+    private AdminService adminService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        adminService = context.getBean(AdminService.class);
+        BenchmarkContext.createProducts(context, 100, 100);
+
+        List<User> users = new ArrayList<>(USER_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(BenchmarkContext.createUser(context, "dashboard-bench-" + i));
+        }
+
+        OrderStatus[] statuses = OrderStatus.values();
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            LocalDateTime createdAt = now.minusMinutes(i * 60L * 24 * 60 / orderCount);
+            orders.add(Order.builder()
+                    .user(users.get(i % USER_COUNT))
+                    .totalAmount(20.0 + i % 500)
+                    .status(statuses[i % statuses.length])
+                    .shippingAddress("1 Benchmark Street")
+                    .createdAt(createdAt)
+                    .updatedAt(createdAt)
+                    .build());
+        }
+        context.getBean(OrderRepository.class).saveAll(orders);
+
+        // The aggregates were built at startup from an empty database
+        context.getBean(DashboardAggregateStore.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AdminDashboardStats getDashboardStats() {
+        return adminService.getDashboardStats();
+    }
+}
@@ -0,0 +1,81 @@
+package com.shopapplication.benchmark;
+
+import com.shopapplication.models.Product;
+import com.shopapplication.models.Role;
+import com.shopapplication.models.User;
+import com.shopapplication.repository.ProductRepository;
+import com.shopapplication.repository.UserRepository;
+import com.shopapplication.shopapplicationApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application (on a random port, the security configuration needs the servlet stack)
+ * against a fresh in-memory H2 database
+ * and seeds the data the benchmarks need through the regular repositories
+ */
+final class BenchmarkContext {
+
+    static final int UNLIMITED_STOCK = 1_000_000_000;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID()
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+        // Command-line style arguments, so they win over application.properties
+        return new SpringApplicationBuilder(shopapplicationApplication.class)
+                .logStartupInfo(false)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--payment.gateway.latency-ms=0"
+                );
+    }
+
+    static User createUser(ConfigurableApplicationContext context, String name) {
+        return context.getBean(UserRepository.class).save(User.builder()
+                .username(name)
+                .email(name + "@bench.local")
+                .password("not-used")
+                .role(Role.USER)
+                .build());
+    }
+
+    static List<Product> createProducts(ConfigurableApplicationContext context, int count, int stock) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(Product.builder()
+                    .name("Benchmark product " + i)
+                    .description("Seeded product number " + i)
+                    .price(10.0 + i % 100)
+                    .stock(stock)
+                    .category("Category " + i % 10)
+                    .build());
+        }
+        return context.getBean(ProductRepository.class).saveAll(products);
+    }
+
+    /**
+     * Make the user the current principal on every benchmark thread
+     */
+    static void signIn(User user) {
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.shopapplication.benchmark;
+
+import com.shopapplication.dto.CartItemRequest;
+import com.shopapplication.dto.CartResponse;
+import com.shopapplication.models.Product;
+import com.shopapplication.service.CartService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartService.getCart for a cart holding cartSize distinct products
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    @Param({"1", "20", "100"})
+    private int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cartService = context.getBean(CartService.class);
+        BenchmarkContext.signIn(BenchmarkContext.createUser(context, "cart-bench"));
+        for (Product product : BenchmarkContext.createProducts(context, cartSize, BenchmarkContext.UNLIMITED_STOCK)) {
+            cartService.addToCart(new CartItemRequest(product.getId(), 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CartResponse getCart() {
+        return cartService.getCart();
+    }
+}
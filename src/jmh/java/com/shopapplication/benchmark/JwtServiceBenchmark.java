@@ -0,0 +1,62 @@
+package com.shopapplication.benchmark;
+
+import com.shopapplication.service.JwtClaims;
+import com.shopapplication.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtService token generation and verification, no Spring context needed
+ * - tokenCount: distinct tokens presented in rotation (how much of the working set fits the verified-token cache)
+ * - verifyToken: cache enabled as configured in production; verifyTokenUncached: every call parses and checks the signature
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    @Param({"1", "10000"})
+    private int tokenCount;
+
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private String[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 10_000);
+        uncachedJwtService = new JwtService(SECRET, 0);
+        tokens = new String[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            tokens[i] = jwtService.generateToken("user" + i + "@bench.local");
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("user@bench.local");
+    }
+
+    @Benchmark
+    public JwtClaims verifyToken() {
+        return jwtService.verifyToken(nextToken());
+    }
+
+    @Benchmark
+    public JwtClaims verifyTokenUncached() {
+        return uncachedJwtService.verifyToken(nextToken());
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % tokens.length;
+        return token;
+    }
+}
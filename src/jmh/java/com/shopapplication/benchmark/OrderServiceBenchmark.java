@@ -0,0 +1,64 @@
+package com.shopapplication.benchmark;
+
+import com.shopapplication.dto.CreateOrderRequest;
+import com.shopapplication.dto.OrderResponse;
+import com.shopapplication.models.Product;
+import com.shopapplication.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService.createOrder with direct order items
+ * - productCount: size of the catalog the order lines are drawn from
+ * - linesPerOrder: number of distinct products in each order
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    @Param({"100", "10000"})
+    private int productCount;
+
+    @Param({"1", "10"})
+    private int linesPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private List<Long> productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        productIds = BenchmarkContext.createProducts(context, productCount, BenchmarkContext.UNLIMITED_STOCK).stream()
+                .map(Product::getId)
+                .toList();
+        BenchmarkContext.signIn(BenchmarkContext.createUser(context, "order-bench"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderResponse createOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int start = random.nextInt(productIds.size());
+        List<CreateOrderRequest.OrderItemDto> items = new ArrayList<>(linesPerOrder);
+        for (int i = 0; i < linesPerOrder; i++) {
+            Long productId = productIds.get((start + i) % productIds.size());
+            items.add(new CreateOrderRequest.OrderItemDto(productId, 1, null));
+        }
+        return orderService.createOrder(new CreateOrderRequest("1 Benchmark Street", "CARD", items));
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.LocalDateTime;
+
 @Configuration
 @RequiredArgsConstructor
 public class DataSeeder {
@@ -25,7 +27,6 @@ public class DataSeeder {
                         .stock(15)
                         .imageUrl("https://example.com/headphones.jpg")
                         .category("Electronics")
-                        .rating(4.5f)
                         .build();
 
                 Product p2 = Product.builder()
@@ -35,7 +36,6 @@ public class DataSeeder {
                         .stock(20)
                         .imageUrl("https://example.com/smartwatch.jpg")
                         .category("Wearables")
-                        .rating(4.3f)
                         .build();
 
                 Product p3 = Product.builder()
@@ -45,7 +45,6 @@ public class DataSeeder {
                         .stock(30)
                         .imageUrl("https://example.com/speaker.jpg")
                         .category("Audio")
-                        .rating(4.6f)
                         .build();
 
                 Product p4 = Product.builder()
@@ -55,7 +54,6 @@ public class DataSeeder {
                         .stock(40)
                         .imageUrl("https://example.com/backpack.jpg")
                         .category("Accessories")
-                        .rating(4.2f)
                         .build();
 
                 Product p5 = Product.builder()
@@ -65,7 +63,6 @@ public class DataSeeder {
                         .stock(25)
                         .imageUrl("https://example.com/keyboard.jpg")
                         .category("Computer Peripherals")
-                        .rating(4.7f)
                         .build();
 
                 productRepository.save(p1);
@@ -78,6 +75,11 @@ public class DataSeeder {
             } else {
                 System.out.println("✅ Products already exist — skipping seeding.");
             }
+
+            // Older seeded products have no createdAt; keyset pagination sorts on it
+            productRepository.backfillMissingCreatedAt(LocalDateTime.now());
+            // Rating aggregate columns added after products already existed
+            productRepository.backfillRatingAggregates();
         };
     }
 }
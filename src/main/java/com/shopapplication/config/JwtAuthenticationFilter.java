@@ -1,7 +1,7 @@
 package com.shopapplication.config;
+import com.shopapplication.service.JwtClaims;
+import com.shopapplication.service.CurrentUserProvider;
 import com.shopapplication.service.JwtService;
-import com.shopapplication.repository.UserRepository;
-import com.shopapplication.repository.AdminRepository;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,14 +19,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private JwtService jwtService;
-    private UserRepository userRepository;
-    private AdminRepository adminRepository;
+    private CurrentUserProvider currentUserProvider;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtService jwtService, UserRepository userRepository, AdminRepository adminRepository) {
+    public JwtAuthenticationFilter(JwtService jwtService, CurrentUserProvider currentUserProvider) {
         this.jwtService = jwtService;
-        this.userRepository = userRepository;
-        this.adminRepository = adminRepository;
+        this.currentUserProvider = currentUserProvider;
     }
 
     @Override
@@ -39,26 +37,26 @@ protected void doFilterInternal(HttpServletRequest request,
         final String jwt;
         final String userEmail;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwt = authHeader.substring(7);
+        } else if (isNotificationStream(request) && request.getParameter("token") != null) {
+            // Browsers' EventSource cannot set headers, so streams may pass the token as ?token=
+            jwt = request.getParameter("token");
+        } else {
             filterChain.doFilter(request, response);
             return;
         }
-
-        jwt = authHeader.substring(7);
         
         try {
-            userEmail = jwtService.extractEmail(jwt);
+            // Single parse/verify per token; repeat requests with the same token hit the cache
+            JwtClaims claims = jwtService.verifyToken(jwt);
+            userEmail = claims.email();
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Check User table first
-                UserDetails userDetails = userRepository.findByEmail(userEmail).orElse(null);
-                
-                // If not found in User table, check Admin table
-                if (userDetails == null) {
-                    userDetails = adminRepository.findByEmail(userEmail).orElse(null);
-                }
+                // User table first, then Admin table (served from the short-TTL principal cache)
+                UserDetails userDetails = currentUserProvider.loadPrincipal(userEmail);
                 
-                if (userDetails != null && jwtService.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -75,4 +73,8 @@ protected void doFilterInternal(HttpServletRequest request,
 
         filterChain.doFilter(request, response);
     }
+
+    private static boolean isNotificationStream(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && request.getRequestURI().endsWith("/notifications/stream");
+    }
 }
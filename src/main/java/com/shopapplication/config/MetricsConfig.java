@@ -0,0 +1,36 @@
+package com.shopapplication.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.hibernate.cfg.AvailableSettings.STATEMENT_INSPECTOR;
+
+/**
+ * Application metrics on top of the actuator defaults (HTTP, JVM, Hikari pool, Tomcat)
+ * - shop.service: every public service method (ServiceTimingAspect)
+ * - shop.http.queries: Hibernate statements per HTTP request (QueryCountFilter)
+ * - shop.payments: payment outcomes (PaymentService)
+ * - shop.checkout: order creation and payment submission, with latency histograms (@Timed)
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public QueryCountInspector queryCountInspector() {
+        return new QueryCountInspector();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer(QueryCountInspector queryCountInspector) {
+        return properties -> properties.put(STATEMENT_INSPECTOR, queryCountInspector);
+    }
+
+    // Enables @Timed on individual methods
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.shopapplication.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class PaymentExecutorConfig {
+
+    /**
+     * Bounded executor for the database side of payments
+     * - Runs the short transactions around a gateway call (mark as sent, apply the answer); the gateway call
+     *   itself is non-blocking (PaymentGateway returns a future), so an in-flight payment holds no thread
+     *   and gateway latency does not limit throughput here
+     * - Size it like a share of the DB connection pool, not by gateway concurrency x latency
+     * - Bounded queue: when both are full new payments are rejected (and marked FAILED)
+     *   rather than piling up in memory
+     * - Queued work is allowed to finish on shutdown; charges still in flight at the gateway are
+     *   reconciled on the next start (PaymentService.resumePendingPayments)
+     */
+    @Bean(name = "paymentExecutor")
+    public ThreadPoolTaskExecutor paymentExecutor(
+            @Value("${payment.gateway.pool-size:8}") int poolSize,
+            @Value("${payment.gateway.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("payment-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
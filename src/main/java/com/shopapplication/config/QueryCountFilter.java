@@ -0,0 +1,44 @@
+package com.shopapplication.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many Hibernate statements each HTTP request ran, per method and URI pattern (shop.http.queries)
+ * A jump in this number for an endpoint is the usual sign of an N+1 regression
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final QueryCountInspector queryCountInspector;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        queryCountInspector.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("shop.http.queries")
+                    .description("Hibernate statements executed per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(queryCountInspector.current());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.shopapplication.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread (JdbcTemplate calls are not included)
+ * QueryCountFilter resets the count at the start of each HTTP request and records it at the end
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -1,6 +1,10 @@
 package com.shopapplication.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,6 +24,9 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -27,6 +34,13 @@ public class SecurityConfig {
             // ✅ ENABLE CORS - This is critical for frontend-backend communication
             .cors(cors -> cors.configure(http))
             .authorizeHttpRequests(auth -> auth
+                // Async re-dispatches of notification streams were already authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                // Actuator: open on the internal management port (bound to 127.0.0.1 by management.server.address,
+                // never to be exposed), admin only if served on the API port
+                .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAuthority("ROLE_ADMIN")
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/products/**").permitAll() // Public access to view products
                 .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN") // Admin only
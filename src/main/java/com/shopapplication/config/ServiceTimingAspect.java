@@ -0,0 +1,46 @@
+package com.shopapplication.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public method of the beans in com.shopapplication.service (shop.service{class, method, exception})
+ * - Runs outside the transaction advice, so commit time is included
+ * - Calls within the same bean are not intercepted (Spring proxies)
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceTimingAspect {
+
+    private static final String METRIC_NAME = "shop.service";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("within(com.shopapplication.service..*) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Service method latency")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
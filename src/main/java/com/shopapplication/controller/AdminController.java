@@ -1,15 +1,22 @@
 package com.shopapplication.controller;
 
 import com.shopapplication.dto.AdminDashboardStats;
+import com.shopapplication.dto.CursorPageResponse;
+import com.shopapplication.dto.ProductImportReport;
 import com.shopapplication.dto.ProductRequest;
 import com.shopapplication.dto.ProductResponse;
 import com.shopapplication.service.AdminService;
+import com.shopapplication.service.ProductImportService;
 import com.shopapplication.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -21,12 +28,13 @@ public class AdminController {
 
     private final ProductService productService;
     private final AdminService adminService;
+    private final ProductImportService productImportService;
     private final com.shopapplication.service.NotificationService notificationService;
 
     @GetMapping("/dashboard/stats")
-    public ResponseEntity<?> getDashboardStats() {
+    public ResponseEntity<?> getDashboardStats(@RequestParam(required = false) String source) {
         try {
-            AdminDashboardStats stats = adminService.getDashboardStats();
+            AdminDashboardStats stats = adminService.getDashboardStats(source);
             return ResponseEntity.ok(stats);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -34,9 +42,11 @@ public class AdminController {
     }
 
     @GetMapping("/products")
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
         try {
-            List<ProductResponse> products = productService.getAllProducts();
+            CursorPageResponse<ProductResponse> products = productService.getProducts(sort, cursor, size);
             return ResponseEntity.ok(products);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -89,6 +99,25 @@ public class AdminController {
         }
     }
 
+    /**
+     * Bulk create/update products from a streamed body
+     * POST /api/admin/products/import with Content-Type text/csv (header row required) or application/x-ndjson
+     * - Rows with an id update that product, rows without one create a product
+     * - Responds with row counts and the rejected rows (line number and reason)
+     */
+    @PostMapping(path = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                            InputStream body) {
+        try {
+            ProductImportReport report = "csv".equals(contentType.getSubtype())
+                    ? productImportService.importCsv(body)
+                    : productImportService.importNdjson(body);
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/notifications")
     public ResponseEntity<?> getAdminNotifications() {
         try {
@@ -99,6 +128,31 @@ public class AdminController {
         }
     }
 
+    @GetMapping(path = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAdminNotifications() {
+        return notificationService.streamAdminNotifications();
+    }
+
+    @GetMapping("/notifications/count")
+    public ResponseEntity<?> getAdminUnreadCount() {
+        try {
+            long count = notificationService.getAdminUnreadCount();
+            return ResponseEntity.ok().body(Map.of("count", count));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/notifications/read-all")
+    public ResponseEntity<?> markAllAdminNotificationsAsRead() {
+        try {
+            notificationService.markAllAdminNotificationsAsRead();
+            return ResponseEntity.ok().body(Map.of("message", "All notifications marked as read"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/notifications/{id}/read")
     public ResponseEntity<?> markAdminNotificationAsRead(@PathVariable Long id) {
         try {
@@ -0,0 +1,58 @@
+package com.shopapplication.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopapplication.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/export")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class ExportController {
+
+    private final ExportService exportService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Streamed export
+     * GET /api/admin/export/{products|orders|payments}?format=csv|ndjson&from=2025-01-01T00:00:00&to=...
+     * - The body is written on a background thread as rows are read; the request thread is released
+     */
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset,
+                                                        @RequestParam(required = false) String format,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            ExportService.Dataset exportDataset = ExportService.Dataset.fromParam(dataset);
+            ExportService.Format exportFormat = ExportService.Format.fromParam(format);
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new RuntimeException("from must be before to");
+            }
+            String fileName = exportDataset.getFileName() + "." + exportFormat.getExtension();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                    .body(out -> exportService.export(exportDataset, exportFormat, from, to, out));
+        } catch (RuntimeException e) {
+            // A streamed return type needs a streamed error body as well
+            Map<String, String> error = Map.of("error", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.shopapplication.controller;
 import com.shopapplication.dto.NotificationResponse;
 import com.shopapplication.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -26,6 +28,15 @@ public class NotificationController {
         }
     }
 
+    /**
+     * Live notifications as Server-Sent Events ("notification" events, heartbeat comments)
+     * Replaces polling /unread and /count
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications() {
+        return notificationService.streamUserNotifications();
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<?> getUnreadNotifications() {
         try {
@@ -2,6 +2,7 @@ package com.shopapplication.controller;
 
 import com.shopapplication.dto.CreateOrderRequest;
 import com.shopapplication.dto.OrderResponse;
+import com.shopapplication.dto.PageResponse;
 import com.shopapplication.dto.UpdateOrderStatusRequest;
 import com.shopapplication.service.OrderService;
 import lombok.RequiredArgsConstructor;
@@ -9,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -33,9 +33,10 @@ public class OrderController {
     }
 
     @GetMapping
-    public ResponseEntity<?> getUserOrders() {
+    public ResponseEntity<?> getUserOrders(@RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "20") int size) {
         try {
-            List<OrderResponse> orders = orderService.getUserOrders();
+            PageResponse<OrderResponse> orders = orderService.getUserOrders(page, size);
             return ResponseEntity.ok(orders);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -68,9 +69,10 @@ public class OrderController {
     // Admin endpoints
     @GetMapping("/admin/all")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<?> getAllOrders() {
+    public ResponseEntity<?> getAllOrders(@RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "20") int size) {
         try {
-            List<OrderResponse> orders = orderService.getAllOrders();
+            PageResponse<OrderResponse> orders = orderService.getAllOrders(page, size);
             return ResponseEntity.ok(orders);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -93,9 +95,11 @@ public class OrderController {
 
     @GetMapping("/admin/status/{status}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<?> getOrdersByStatus(@PathVariable String status) {
+    public ResponseEntity<?> getOrdersByStatus(@PathVariable String status,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size) {
         try {
-            List<OrderResponse> orders = orderService.getOrdersByStatus(status);
+            PageResponse<OrderResponse> orders = orderService.getOrdersByStatus(status, page, size);
             return ResponseEntity.ok(orders);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -1,5 +1,6 @@
 package com.shopapplication.controller;
 
+import com.shopapplication.dto.PageResponse;
 import com.shopapplication.dto.PaymentRequest;
 import com.shopapplication.dto.PaymentResponse;
 import com.shopapplication.service.PaymentService;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -22,19 +24,38 @@ public class PaymentController {
      * Process payment for an order
      * POST /api/payments/process
      * Body: { "orderId": 1, "paymentMethod": "CREDIT_CARD", "idempotencyKey": "unique-key-123" }
+     * Returns 202 with the PENDING payment; poll GET /api/payments/{paymentId} for the result
      */
     @PostMapping("/process")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> processPayment(@RequestBody PaymentRequest request) {
         try {
             PaymentResponse response = paymentService.processPayment(request);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/payments/" + response.getId()))
+                    .body(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ErrorResponse(e.getMessage()));
         }
     }
 
+    /**
+     * Get payment by ID (poll the status of a submitted payment)
+     * GET /api/payments/{paymentId}
+     */
+    @GetMapping("/{paymentId:\\d+}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getPaymentById(@PathVariable Long paymentId) {
+        try {
+            PaymentResponse response = paymentService.getPaymentById(paymentId);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Get payment by order ID
      * GET /api/payments/order/{orderId}
@@ -57,9 +78,10 @@ public class PaymentController {
      */
     @GetMapping("/history")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getPaymentHistory() {
+    public ResponseEntity<?> getPaymentHistory(@RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size) {
         try {
-            List<PaymentResponse> history = paymentService.getPaymentHistory();
+            PageResponse<PaymentResponse> history = paymentService.getPaymentHistory(page, size);
             return ResponseEntity.ok(history);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
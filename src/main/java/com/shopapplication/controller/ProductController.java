@@ -1,10 +1,17 @@
 package com.shopapplication.controller;
 
+import com.shopapplication.dto.CursorPageResponse;
+import com.shopapplication.dto.ProductFilterResponse;
 import com.shopapplication.dto.ProductResponse;
+import com.shopapplication.service.CatalogVersion;
 import com.shopapplication.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -14,31 +21,77 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogVersion catalogVersion;
 
+    /**
+     * Cursor-paginated catalog
+     * GET /api/products?sort=newest|price_asc|price_desc|rating&size=20&cursor=...
+     * - Catalog reads carry an ETag and Last-Modified; a matching If-None-Match / If-Modified-Since
+     *   gets 304 before anything is loaded
+     */
     @GetMapping
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size,
+                                            WebRequest request) {
+        if (isNotModified(request, catalogVersion.forCatalog())) {
+            return notModified();
+        }
         try {
-            List<ProductResponse> products = productService.getAllProducts();
-            return ResponseEntity.ok(products);
+            CursorPageResponse<ProductResponse> products = productService.getProducts(sort, cursor, size);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(products);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, catalogVersion.forProduct(id))) {
+            return notModified();
+        }
         try {
             ProductResponse product = productService.getProductById(id);
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(product);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<?> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<?> getProductsByCategory(@PathVariable String category,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size,
+                                                   WebRequest request) {
+        if (isNotModified(request, catalogVersion.forCatalog())) {
+            return notModified();
+        }
         try {
-            List<ProductResponse> products = productService.getProductsByCategory(category);
+            CursorPageResponse<ProductResponse> products = productService.getProductsByCategory(category, sort, cursor, size);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(products);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Combined filters with facet counts
+     * GET /api/products/filter?category=a&category=b&minPrice=&maxPrice=&inStock=true&minRating=4&sort=&page=0&size=20
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(@RequestParam(name = "category", required = false) List<String> categories,
+                                            @RequestParam(required = false) Double minPrice,
+                                            @RequestParam(required = false) Double maxPrice,
+                                            @RequestParam(required = false) Boolean inStock,
+                                            @RequestParam(required = false) Float minRating,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(required = false) Integer size) {
+        try {
+            ProductFilterResponse products = productService.filterProducts(
+                    categories != null ? new HashSet<>(categories) : null,
+                    minPrice, maxPrice, inStock, minRating, sort, page, size);
             return ResponseEntity.ok(products);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -46,12 +99,28 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchProducts(@RequestParam String keyword) {
+    public ResponseEntity<?> searchProducts(@RequestParam String keyword,
+                                            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<ProductResponse> products = productService.searchProducts(keyword);
+            List<ProductResponse> products = productService.searchProducts(keyword, limit);
             return ResponseEntity.ok(products);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    // Helper methods
+
+    /**
+     * Evaluate the conditional request headers; also sets ETag and Last-Modified on the response
+     * - If-None-Match wins over If-Modified-Since (which only has second resolution)
+     */
+    private static boolean isNotModified(WebRequest request, CatalogVersion.Tag tag) {
+        return request.checkNotModified(tag.etag(), tag.lastModified());
+    }
+
+    // Clients must revalidate, but may keep the body; stops the default no-store from being added
+    private static ResponseEntity<?> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+    }
 }
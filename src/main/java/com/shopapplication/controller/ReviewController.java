@@ -1,5 +1,6 @@
 package com.shopapplication.controller;
 
+import com.shopapplication.dto.PageResponse;
 import com.shopapplication.dto.ReviewRequest;
 import com.shopapplication.dto.ReviewResponse;
 import com.shopapplication.service.ReviewService;
@@ -109,9 +110,10 @@ public class ReviewController {
      */
     @GetMapping("/my-reviews")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getUserReviews() {
+    public ResponseEntity<?> getUserReviews(@RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<ReviewResponse> reviews = reviewService.getUserReviews();
+            PageResponse<ReviewResponse> reviews = reviewService.getUserReviews(page, size);
             return ResponseEntity.ok(reviews);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
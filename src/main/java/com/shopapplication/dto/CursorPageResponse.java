@@ -0,0 +1,19 @@
+package com.shopapplication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private String nextCursor; // Opaque token for the next page, null on the last page
+    private boolean hasMore;
+    private int size;
+}
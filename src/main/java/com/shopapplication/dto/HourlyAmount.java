@@ -0,0 +1,7 @@
+package com.shopapplication.dto;
+
+/**
+ * Amount summed over the rows created within one hour (aggregate query projection)
+ */
+public record HourlyAmount(Integer year, Integer month, Integer day, Integer hour, Double amount) {
+}
@@ -0,0 +1,7 @@
+package com.shopapplication.dto;
+
+/**
+ * Rows created within one hour (aggregate query projection)
+ */
+public record HourlyCount(Integer year, Integer month, Integer day, Integer hour, Long count) {
+}
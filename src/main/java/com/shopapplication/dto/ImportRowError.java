@@ -0,0 +1,7 @@
+package com.shopapplication.dto;
+
+/**
+ * A rejected import row: its line number in the uploaded file and the reason
+ */
+public record ImportRowError(long line, String error) {
+}
@@ -0,0 +1,15 @@
+package com.shopapplication.dto;
+
+/**
+ * Order item columns, with the product name and image, read by the order listing query
+ * (productId is null for external products)
+ */
+public record OrderItemView(Long orderId,
+                            Long id,
+                            Long productId,
+                            String productName,
+                            String productImage,
+                            Integer quantity,
+                            Double unitPrice,
+                            Double subtotal) {
+}
@@ -0,0 +1,9 @@
+package com.shopapplication.dto;
+
+import com.shopapplication.models.OrderStatus;
+
+/**
+ * Number of orders in one status (aggregate query projection)
+ */
+public record OrderStatusCount(OrderStatus status, Long count) {
+}
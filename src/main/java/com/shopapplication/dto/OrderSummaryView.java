@@ -0,0 +1,18 @@
+package com.shopapplication.dto;
+
+import com.shopapplication.models.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order header columns read by the order listing query (JPQL constructor projection)
+ */
+public record OrderSummaryView(Long id,
+                               Long userId,
+                               String userEmail,
+                               Double totalAmount,
+                               OrderStatus status,
+                               String shippingAddress,
+                               LocalDateTime createdAt,
+                               LocalDateTime updatedAt) {
+}
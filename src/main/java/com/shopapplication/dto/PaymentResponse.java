@@ -1,5 +1,6 @@
 package com.shopapplication.dto;
 
+import com.shopapplication.models.PaymentStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,4 +20,10 @@ public class PaymentResponse {
     private String paymentMethod;
     private String idempotencyKey;
     private LocalDateTime createdAt;
+
+    // Used by JPQL constructor expressions (see PaymentRepository)
+    public PaymentResponse(Long id, Long orderId, Double amount, PaymentStatus status, String paymentMethod,
+                           String idempotencyKey, LocalDateTime createdAt) {
+        this(id, orderId, amount, status.name(), paymentMethod, idempotencyKey, createdAt);
+    }
 }
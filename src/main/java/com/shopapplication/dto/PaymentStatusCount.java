@@ -0,0 +1,9 @@
+package com.shopapplication.dto;
+
+import com.shopapplication.models.PaymentStatus;
+
+/**
+ * Number of payments in one status (aggregate query projection)
+ */
+public record PaymentStatusCount(PaymentStatus status, Long count) {
+}
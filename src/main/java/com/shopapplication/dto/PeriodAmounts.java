@@ -0,0 +1,8 @@
+package com.shopapplication.dto;
+
+/**
+ * Amount summed overall and since the start of today / the last week / the last month (aggregate query projection)
+ * Sums over an empty table come back as null
+ */
+public record PeriodAmounts(Double total, Double today, Double thisWeek, Double thisMonth) {
+}
@@ -0,0 +1,8 @@
+package com.shopapplication.dto;
+
+/**
+ * Row count overall and since the start of today / the last week / the last month (aggregate query projection)
+ * Sums over an empty table come back as null
+ */
+public record PeriodCounts(Long total, Long today, Long thisWeek, Long thisMonth) {
+}
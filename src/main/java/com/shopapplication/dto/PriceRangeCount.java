@@ -0,0 +1,7 @@
+package com.shopapplication.dto;
+
+/**
+ * Number of products priced in [from, to); a null bound is open
+ */
+public record PriceRangeCount(Double from, Double to, long count) {
+}
@@ -0,0 +1,23 @@
+package com.shopapplication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts for a catalog filter; each facet ignores its own filter but applies all the others
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacets {
+    private Map<String, Long> categories;
+    private List<PriceRangeCount> priceRanges;
+    private Map<Integer, Long> ratings; // Minimum stars -> count ("4 & up")
+    private long inStock;
+}
@@ -0,0 +1,21 @@
+package com.shopapplication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFilterResponse {
+    private List<ProductResponse> items;
+    private int page; // Zero-based
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private ProductFacets facets;
+}
@@ -0,0 +1,21 @@
+package com.shopapplication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductImportReport {
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<ImportRowError> errors; // First errors only, see errorsTruncated
+    private boolean errorsTruncated;
+}
@@ -20,6 +20,7 @@ public class ProductResponse {
     private String imageUrl;
     private String category;
     private Float rating;
+    private Integer ratingCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,7 @@
+package com.shopapplication.dto;
+
+/**
+ * Review count and sum of ratings (aggregate query projection)
+ */
+public record RatingSummary(Long count, Long ratingSum) {
+}
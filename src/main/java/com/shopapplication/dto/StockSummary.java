@@ -0,0 +1,7 @@
+package com.shopapplication.dto;
+
+/**
+ * Product count with the number of low-stock and out-of-stock products (aggregate query projection)
+ */
+public record StockSummary(Long total, Long lowStock, Long outOfStock) {
+}
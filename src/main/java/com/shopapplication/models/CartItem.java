@@ -13,7 +13,9 @@ import lombok.*;
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so inserts can be batched; see SequenceIdAllocator for JDBC writers
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
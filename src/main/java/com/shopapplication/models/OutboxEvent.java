@@ -0,0 +1,32 @@
+package com.shopapplication.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain event written in the business transaction and fanned out later by OutboxDispatcher.
+ * Rows are deleted once dispatched.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType type;
+
+    private String title;
+    private String message;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
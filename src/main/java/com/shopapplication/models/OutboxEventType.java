@@ -0,0 +1,5 @@
+package com.shopapplication.models;
+public enum OutboxEventType {
+    ADMIN_NEW_ORDER,
+    ADMIN_NEW_REVIEW
+}
@@ -4,7 +4,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_order_id", columnList = "order_id"),
+        @Index(name = "idx_payments_created_at", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,7 +15,9 @@ import java.time.LocalDateTime;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so inserts can be batched; see SequenceIdAllocator for JDBC writers
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -29,6 +34,9 @@ public class Payment {
 
     private String paymentMethod;
 
+    // Set just before the gateway is called; a PENDING payment with it set may already be charged
+    private LocalDateTime chargeStartedAt;
+
     private LocalDateTime createdAt = LocalDateTime.now();
 }
 
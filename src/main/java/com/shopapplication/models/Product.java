@@ -7,18 +7,29 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_category_created_at_id", columnList = "category, created_at, id"),
+        @Index(name = "idx_products_category_price_id", columnList = "category, price, id"),
+        @Index(name = "idx_products_rating_id", columnList = "rating, id"),
+        @Index(name = "idx_products_category_rating_id", columnList = "category, rating, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Product {
 
+    // Column limits, also checked when validating product requests and import rows
+    public static final int NAME_MAX_LENGTH = 150;
+    public static final int CATEGORY_MAX_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 150)
+    @Column(nullable = false, length = NAME_MAX_LENGTH)
     private String name;
 
     @Column(columnDefinition = "TEXT")
@@ -27,17 +38,55 @@ public class Product {
     @Column(nullable = false)
     private Double price;
 
+    // Reserved and released by InventoryReservationService with conditional UPDATEs; an admin edit writes
+    // it explicitly (ProductRepository.setStock), so saving a loaded entity never overwrites reservations
+    @Column(updatable = false)
     private Integer stock;
 
     @Column(columnDefinition = "TEXT")
     private String imageUrl;
 
+    @Column(length = CATEGORY_MAX_LENGTH)
     private String category;
 
-    private Float rating;
+    // Rating aggregates over the product's reviews, maintained by ReviewService with atomic
+    // UPDATEs (ProductRepository.applyRatingDelta); never written through the entity
+    @Builder.Default
+    @Column(updatable = false)
+    private Float rating = 0.0f; // Average, 0 without reviews
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Integer ratingCount = 0;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Long ratingSum = 0L;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Integer oneStarCount = 0;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Integer twoStarCount = 0;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Integer threeStarCount = 0;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Integer fourStarCount = 0;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Integer fiveStarCount = 0;
 
+    @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 
     // Relationships
@@ -0,0 +1,20 @@
+package com.shopapplication.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A product the user has bought in at least one PAID, SHIPPED or DELIVERED order
+ * Maintained by PurchasedProductService; used to check review eligibility with one primary-key lookup
+ */
+@Entity
+@Table(name = "purchased_products")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PurchasedProduct {
+
+    @EmbeddedId
+    private PurchasedProductId id;
+}
@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "reviews", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "product_id"})
+}, indexes = {
+        @Index(name = "idx_reviews_user_created_at", columnList = "user_id, created_at")
 })
 @Data
 @NoArgsConstructor
@@ -2,8 +2,14 @@ package com.shopapplication.repository;
 
 import com.shopapplication.models.Admin;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface AdminRepository extends JpaRepository<Admin, Long> {
     Optional<Admin> findByEmail(String email);
+
+    @Query("select a.id from Admin a")
+    List<Long> findAllIds();
 }
@@ -4,6 +4,8 @@ import com.shopapplication.models.Cart;
 import com.shopapplication.models.CartItem;
 import com.shopapplication.models.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +14,7 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByCartId(Long cartId);
     List<CartItem> findByCart(Cart cart);
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+
+    @Query("select ci from CartItem ci join fetch ci.product where ci.cart.id = :cartId order by ci.id")
+    List<CartItem> findWithProductByCartId(@Param("cartId") Long cartId);
 }
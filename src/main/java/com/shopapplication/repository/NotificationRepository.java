@@ -3,14 +3,40 @@ package com.shopapplication.repository;
 import com.shopapplication.models.Admin;
 import com.shopapplication.models.Notification;
 import com.shopapplication.models.User;
+import com.shopapplication.dto.HourlyCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserIdAndIsReadFalse(Long userId);
     List<Notification> findByUserOrderByCreatedAtDesc(User user);
     List<Notification> findByUserAndIsReadOrderByCreatedAtDesc(User user, Boolean isRead);
-    long countByUserAndIsRead(User user, Boolean isRead);
     List<Notification> findByAdminOrderByCreatedAtDesc(Admin admin);
+
+    // Unread badge
+
+    long countByUserIdAndIsReadFalse(Long userId);
+
+    long countByAdminIdAndIsReadFalse(Long adminId);
+
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.user.id = :userId and n.isRead = false")
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.admin.id = :adminId and n.isRead = false")
+    int markAllAsReadByAdminId(@Param("adminId") Long adminId);
+
+    // Dashboard aggregates
+
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
+
+    @Query("select new com.shopapplication.dto.HourlyCount(year(n.createdAt), month(n.createdAt), day(n.createdAt), hour(n.createdAt), count(n)) " +
+            "from Notification n where n.createdAt >= :since group by year(n.createdAt), month(n.createdAt), day(n.createdAt), hour(n.createdAt)")
+    List<HourlyCount> countNotificationsPerHour(@Param("since") LocalDateTime since);
 }
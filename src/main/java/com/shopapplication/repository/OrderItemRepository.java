@@ -0,0 +1,19 @@
+package com.shopapplication.repository;
+
+import com.shopapplication.dto.OrderItemView;
+import com.shopapplication.models.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // Items of a whole page of orders in one query, product columns joined in
+    @Query("select new com.shopapplication.dto.OrderItemView(i.order.id, i.id, p.id, p.name, p.imageUrl, " +
+            "i.quantity, i.unitPrice, i.subtotal) " +
+            "from OrderItem i left join i.product p where i.order.id in :orderIds order by i.id")
+    List<OrderItemView> findViewsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -1,13 +1,83 @@
 package com.shopapplication.repository;
+import com.shopapplication.dto.HourlyAmount;
+import com.shopapplication.dto.HourlyCount;
+import com.shopapplication.dto.OrderStatusCount;
+import com.shopapplication.dto.OrderSummaryView;
+import com.shopapplication.dto.PeriodAmounts;
+import com.shopapplication.dto.PeriodCounts;
 import com.shopapplication.models.Order;
 import com.shopapplication.models.OrderStatus;
-import com.shopapplication.models.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
-    List<Order> findByUserOrderByCreatedAtDesc(User user);
-    List<Order> findAllByOrderByCreatedAtDesc();
-    List<Order> findByStatusOrderByCreatedAtDesc(OrderStatus status);
+
+    // Order listings read as projections: one query per page plus the count, no lazy loading
+    String SUMMARY_SELECT = "select new com.shopapplication.dto.OrderSummaryView(o.id, u.id, u.email, " +
+            "o.totalAmount, o.status, o.shippingAddress, o.createdAt, o.updatedAt) from Order o join o.user u ";
+
+    @Query(value = SUMMARY_SELECT + "where u.id = :userId order by o.createdAt desc, o.id desc",
+            countQuery = "select count(o) from Order o where o.user.id = :userId")
+    Page<OrderSummaryView> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "order by o.createdAt desc, o.id desc",
+            countQuery = "select count(o) from Order o")
+    Page<OrderSummaryView> findAllSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "where o.status = :status order by o.createdAt desc, o.id desc",
+            countQuery = "select count(o) from Order o where o.status = :status")
+    Page<OrderSummaryView> findSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where o.id = :id")
+    Optional<OrderSummaryView> findSummaryById(@Param("id") Long id);
+
+    // Dashboard aggregates
+
+    @Query("select new com.shopapplication.dto.OrderStatusCount(o.status, count(o)) from Order o group by o.status")
+    List<OrderStatusCount> countByStatus();
+
+    @Query("select new com.shopapplication.dto.PeriodCounts(count(o), " +
+            "sum(case when o.createdAt >= :today then 1 else 0 end), " +
+            "sum(case when o.createdAt >= :week then 1 else 0 end), " +
+            "sum(case when o.createdAt >= :month then 1 else 0 end)) from Order o")
+    PeriodCounts countOrders(@Param("today") LocalDateTime today,
+                             @Param("week") LocalDateTime week,
+                             @Param("month") LocalDateTime month);
+
+    @Query("select new com.shopapplication.dto.PeriodAmounts(sum(o.totalAmount), " +
+            "sum(case when o.createdAt >= :today then o.totalAmount else 0.0 end), " +
+            "sum(case when o.createdAt >= :week then o.totalAmount else 0.0 end), " +
+            "sum(case when o.createdAt >= :month then o.totalAmount else 0.0 end)) " +
+            "from Order o where o.status in :statuses")
+    PeriodAmounts sumRevenue(@Param("statuses") Collection<OrderStatus> statuses,
+                             @Param("today") LocalDateTime today,
+                             @Param("week") LocalDateTime week,
+                             @Param("month") LocalDateTime month);
+
+    @Query("select sum(o.totalAmount) from Order o where o.status in :statuses")
+    Double sumTotalAmountByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+    @Query("select count(distinct o.user.id) from Order o")
+    long countDistinctOrderingUsers();
+
+    // Index-only probe on idx_orders_user_created_at
+    boolean existsByUserId(Long userId);
+
+    @Query("select new com.shopapplication.dto.HourlyCount(year(o.createdAt), month(o.createdAt), day(o.createdAt), hour(o.createdAt), count(o)) " +
+            "from Order o where o.createdAt >= :since group by year(o.createdAt), month(o.createdAt), day(o.createdAt), hour(o.createdAt)")
+    List<HourlyCount> countOrdersPerHour(@Param("since") LocalDateTime since);
+
+    @Query("select new com.shopapplication.dto.HourlyAmount(year(o.createdAt), month(o.createdAt), day(o.createdAt), hour(o.createdAt), sum(o.totalAmount)) " +
+            "from Order o where o.status in :statuses and o.createdAt >= :since group by year(o.createdAt), month(o.createdAt), day(o.createdAt), hour(o.createdAt)")
+    List<HourlyAmount> sumRevenuePerHour(@Param("statuses") Collection<OrderStatus> statuses,
+                                         @Param("since") LocalDateTime since);
 }
@@ -0,0 +1,15 @@
+package com.shopapplication.repository;
+
+import com.shopapplication.models.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest pending events; rows locked by another dispatcher are skipped rather than waited on
+    @Query(value = "SELECT * FROM outbox_events ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -1,11 +1,46 @@
 package com.shopapplication.repository;
 
+import com.shopapplication.dto.PaymentResponse;
+import com.shopapplication.dto.PaymentStatusCount;
 import com.shopapplication.models.Payment;
+import com.shopapplication.models.PaymentStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrderId(Long orderId);
     Optional<Payment> findByIdempotencyKey(String key);
+
+    /**
+     * Payment history of one user, newest first, read straight into responses
+     * - Walks the user's orders through idx_orders_user_created_at, then payments through idx_payments_order_id
+     */
+    @Query(value = "select new com.shopapplication.dto.PaymentResponse(p.id, o.id, p.amount, p.status, " +
+            "p.paymentMethod, p.idempotencyKey, p.createdAt) from Payment p join p.order o " +
+            "where o.user.id = :userId order by p.createdAt desc, p.id desc",
+            countQuery = "select count(p) from Payment p join p.order o where o.user.id = :userId")
+    Page<PaymentResponse> findHistoryByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select p.id from Payment p where p.status = :status")
+    List<Long> findIdsByStatus(@Param("status") PaymentStatus status);
+
+    /**
+     * Record that the gateway is about to be called; 0 if the payment is no longer PENDING or was already sent
+     */
+    @Modifying
+    @Query("update Payment p set p.chargeStartedAt = :now where p.id = :paymentId " +
+            "and p.status = com.shopapplication.models.PaymentStatus.PENDING and p.chargeStartedAt is null")
+    int markChargeStarted(@Param("paymentId") Long paymentId, @Param("now") LocalDateTime now);
+
+    // Dashboard aggregate
+    @Query("select new com.shopapplication.dto.PaymentStatusCount(p.status, count(p)) from Payment p group by p.status")
+    List<PaymentStatusCount> countByStatus();
 }
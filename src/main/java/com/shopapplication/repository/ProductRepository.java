@@ -1,10 +1,112 @@
 package com.shopapplication.repository;
 
+import com.shopapplication.dto.StockSummary;
 import com.shopapplication.models.Product;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategory(String category);
     List<Product> findByNameContainingIgnoreCase(String keyword);
+
+    // Keyset (cursor) pagination: each sort ends with id so the order is stable
+    Window<Product> findAllByOrderByCreatedAtDescIdDesc(ScrollPosition position, Limit limit);
+    Window<Product> findAllByOrderByPriceAscIdAsc(ScrollPosition position, Limit limit);
+    Window<Product> findAllByOrderByPriceDescIdDesc(ScrollPosition position, Limit limit);
+    Window<Product> findByCategoryOrderByCreatedAtDescIdDesc(String category, ScrollPosition position, Limit limit);
+    Window<Product> findByCategoryOrderByPriceAscIdAsc(String category, ScrollPosition position, Limit limit);
+    Window<Product> findByCategoryOrderByPriceDescIdDesc(String category, ScrollPosition position, Limit limit);
+    Window<Product> findAllByOrderByRatingDescIdDesc(ScrollPosition position, Limit limit);
+    Window<Product> findByCategoryOrderByRatingDescIdDesc(String category, ScrollPosition position, Limit limit);
+
+    // Keyset scan over the whole table (see forEachInIdOrder)
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Every product in id order, batchSize rows per query
+     * - Keyset on id rather than OFFSET pages: rows are never skipped or read twice, however the table is laid out
+     * - Used to build the in-memory indexes at startup
+     */
+    default void forEachInIdOrder(int batchSize, Consumer<Product> action) {
+        long lastId = 0;
+        List<Product> batch;
+        do {
+            batch = findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+            batch.forEach(action);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // Dashboard aggregate: low stock is 1..threshold-1, out of stock is exactly 0
+    @Query("select new com.shopapplication.dto.StockSummary(count(p), " +
+            "sum(case when p.stock > 0 and p.stock < :threshold then 1 else 0 end), " +
+            "sum(case when p.stock = 0 then 1 else 0 end)) from Product p")
+    StockSummary summarizeStock(@Param("threshold") int threshold);
+
+    /**
+     * Current stock, locking the row until the transaction ends (reservations wait for an admin stock edit)
+     */
+    @Query(value = "SELECT stock FROM products WHERE id = :productId FOR UPDATE", nativeQuery = true)
+    Integer lockStock(@Param("productId") Long productId);
+
+    // Stock is not written through the entity (see Product.stock)
+    @Modifying
+    @Query("update Product p set p.stock = :stock where p.id = :productId")
+    int setStock(@Param("productId") Long productId, @Param("stock") Integer stock);
+
+    @Modifying
+    @Transactional
+    @Query("update Product p set p.createdAt = :now where p.createdAt is null")
+    int backfillMissingCreatedAt(@Param("now") LocalDateTime now);
+
+    /**
+     * Apply a review change to the rating aggregates in one statement (safe under concurrent reviews)
+     * - countDelta/sumDelta: +1/+rating on create, -1/-rating on delete, 0/new-old on update
+     * - Star deltas are the change per histogram bucket; the average is recomputed from the old values plus the deltas
+     */
+    @Modifying
+    @Query("update Product p set p.ratingCount = p.ratingCount + :countDelta, p.ratingSum = p.ratingSum + :sumDelta, " +
+            "p.oneStarCount = p.oneStarCount + :oneStar, p.twoStarCount = p.twoStarCount + :twoStar, " +
+            "p.threeStarCount = p.threeStarCount + :threeStar, p.fourStarCount = p.fourStarCount + :fourStar, " +
+            "p.fiveStarCount = p.fiveStarCount + :fiveStar, " +
+            "p.rating = case when p.ratingCount + :countDelta > 0 " +
+            "then cast((p.ratingSum + :sumDelta) * 1.0 / (p.ratingCount + :countDelta) as Float) else 0.0f end " +
+            "where p.id = :productId")
+    int applyRatingDelta(@Param("productId") Long productId,
+                         @Param("countDelta") int countDelta,
+                         @Param("sumDelta") long sumDelta,
+                         @Param("oneStar") int oneStar,
+                         @Param("twoStar") int twoStar,
+                         @Param("threeStar") int threeStar,
+                         @Param("fourStar") int fourStar,
+                         @Param("fiveStar") int fiveStar);
+
+    /**
+     * Compute rating aggregates from the reviews table for products that predate them
+     */
+    @Modifying
+    @Transactional
+    @Query("update Product p set " +
+            "p.ratingCount = (select count(r) from Review r where r.product = p), " +
+            "p.ratingSum = (select coalesce(sum(r.rating), 0) from Review r where r.product = p), " +
+            "p.oneStarCount = (select count(r) from Review r where r.product = p and r.rating = 1), " +
+            "p.twoStarCount = (select count(r) from Review r where r.product = p and r.rating = 2), " +
+            "p.threeStarCount = (select count(r) from Review r where r.product = p and r.rating = 3), " +
+            "p.fourStarCount = (select count(r) from Review r where r.product = p and r.rating = 4), " +
+            "p.fiveStarCount = (select count(r) from Review r where r.product = p and r.rating = 5), " +
+            "p.rating = (select cast(coalesce(avg(r.rating), 0) as Float) from Review r where r.product = p) " +
+            "where p.ratingCount is null")
+    int backfillRatingAggregates();
 }
@@ -0,0 +1,8 @@
+package com.shopapplication.repository;
+
+import com.shopapplication.models.PurchasedProduct;
+import com.shopapplication.models.PurchasedProductId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PurchasedProductRepository extends JpaRepository<PurchasedProduct, PurchasedProductId> {
+}
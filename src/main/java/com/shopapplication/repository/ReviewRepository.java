@@ -1,12 +1,39 @@
 package com.shopapplication.repository;
 
+import com.shopapplication.dto.HourlyCount;
+import com.shopapplication.dto.RatingSummary;
 import com.shopapplication.models.Review;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByProductId(Long productId);
     Optional<Review> findByUserIdAndProductId(Long userId, Long productId);
+
+    /**
+     * One user's reviews, newest first, with user and product loaded in the same query
+     * - Served by idx_reviews_user_created_at
+     */
+    @Query(value = "select r from Review r join fetch r.user join fetch r.product " +
+            "where r.user.id = :userId order by r.createdAt desc, r.id desc",
+            countQuery = "select count(r) from Review r where r.user.id = :userId")
+    Page<Review> findByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Dashboard aggregates
+
+    @Query("select new com.shopapplication.dto.RatingSummary(count(r), sum(r.rating)) from Review r")
+    RatingSummary summarizeRatings();
+
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
+
+    @Query("select new com.shopapplication.dto.HourlyCount(year(r.createdAt), month(r.createdAt), day(r.createdAt), hour(r.createdAt), count(r)) " +
+            "from Review r where r.createdAt >= :since group by year(r.createdAt), month(r.createdAt), day(r.createdAt), hour(r.createdAt)")
+    List<HourlyCount> countReviewsPerHour(@Param("since") LocalDateTime since);
 }
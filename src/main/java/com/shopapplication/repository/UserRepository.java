@@ -1,7 +1,14 @@
 package com.shopapplication.repository;
 
 import com.shopapplication.models.User;
+import com.shopapplication.dto.HourlyCount;
+import com.shopapplication.dto.PeriodCounts;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -9,4 +16,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    // Dashboard aggregates
+
+    @Query("select new com.shopapplication.dto.PeriodCounts(count(u), " +
+            "sum(case when u.createdAt >= :today then 1 else 0 end), " +
+            "sum(case when u.createdAt >= :week then 1 else 0 end), " +
+            "sum(case when u.createdAt >= :month then 1 else 0 end)) from User u")
+    PeriodCounts countRegistrations(@Param("today") LocalDateTime today,
+                                    @Param("week") LocalDateTime week,
+                                    @Param("month") LocalDateTime month);
+
+    @Query("select new com.shopapplication.dto.HourlyCount(year(u.createdAt), month(u.createdAt), day(u.createdAt), hour(u.createdAt), count(u)) " +
+            "from User u where u.createdAt >= :since group by year(u.createdAt), month(u.createdAt), day(u.createdAt), hour(u.createdAt)")
+    List<HourlyCount> countRegistrationsPerHour(@Param("since") LocalDateTime since);
 }
@@ -26,6 +26,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authManager;
     private final JwtService jwtService;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final CurrentUserProvider currentUserProvider;
 
     public String register(RegisterRequest request) {
         // Validate request
@@ -54,6 +56,7 @@ public class AuthService {
                 .role(Role.USER)
                 .build();
         userRepository.save(user);
+        dashboardAggregateStore.onUserRegistered(user);
         return jwtService.generateToken(user.getEmail());
     }
 
@@ -102,6 +105,7 @@ public class AuthService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setUpdatedAt(java.time.LocalDateTime.now());
         userRepository.save(user);
+        currentUserProvider.invalidate(user.getEmail());
         
         // Remove used token
         resetTokens.remove(request.getEmail());
@@ -3,61 +3,29 @@ package com.shopapplication.service;
 import com.shopapplication.dto.CartItemRequest;
 import com.shopapplication.dto.CartItemResponse;
 import com.shopapplication.dto.CartResponse;
-import com.shopapplication.models.Cart;
-import com.shopapplication.models.CartItem;
 import com.shopapplication.models.Product;
 import com.shopapplication.models.User;
-import com.shopapplication.repository.CartItemRepository;
-import com.shopapplication.repository.CartRepository;
 import com.shopapplication.repository.ProductRepository;
-import com.shopapplication.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
-
-    /**
-     * Get or create cart for current user
-     */
-    @Transactional
-    public Cart getOrCreateCart(User user) {
-        Optional<Cart> existingCart = cartRepository.findByUser(user);
-        
-        if (existingCart.isPresent()) {
-            return existingCart.get();
-        }
-        
-        // Create new cart
-        Cart cart = Cart.builder()
-                .user(user)
-                .createdAt(LocalDateTime.now())
-                .build();
-        
-        return cartRepository.save(cart);
-    }
+    private final CartStore cartStore;
+    private final CurrentUserProvider currentUserProvider;
 
     /**
      * Add item to cart
+     * - Served from the in-memory cart; the product is read from the database only when it is not in the cart yet
      */
-    @Transactional
     public CartResponse addToCart(CartItemRequest request) {
         User user = getCurrentUser();
-        Cart cart = getOrCreateCart(user);
         
         // Validate request
         if (request.getProductId() == null) {
@@ -68,51 +36,36 @@ public class CartService {
             throw new RuntimeException("Quantity must be greater than 0");
         }
         
-        // Check if product exists
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + request.getProductId()));
-        
-        // Check stock availability
-        if (product.getStock() < request.getQuantity()) {
-            throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
+        CartStore.CartLine line = findLine(user, request.getProductId());
+        if (line == null) {
+            // Check if product exists
+            Product product = productRepository.findById(request.getProductId())
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + request.getProductId()));
+            line = CartStore.CartLine.of(product, 0);
         }
+        CartStore.CartLine productLine = line;
         
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByCartAndProduct(cart, product);
-        
-        if (existingItem.isPresent()) {
-            // Update quantity
-            CartItem item = existingItem.get();
-            int newQuantity = item.getQuantity() + request.getQuantity();
+        CartStore.CartSnapshot cart = cartStore.update(user, activeCart -> {
+            // Add to the quantity already in the cart, if any
+            CartStore.CartLine existing = activeCart.getLine(productLine.productId());
+            int newQuantity = (existing != null ? existing.quantity() : 0) + request.getQuantity();
             
-            // Check stock for new quantity
-            if (product.getStock() < newQuantity) {
-                throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
+            // Check stock availability
+            if (productLine.stock() < newQuantity) {
+                throw new RuntimeException("Insufficient stock. Available: " + productLine.stock());
             }
             
-            item.setQuantity(newQuantity);
-            cartItemRepository.save(item);
-        } else {
-            // Add new item
-            CartItem cartItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .build();
-            
-            cartItemRepository.save(cartItem);
-        }
+            activeCart.putLine((existing != null ? existing : productLine).withQuantity(newQuantity));
+        });
         
-        return getCart();
+        return toCartResponse(user, cart);
     }
 
     /**
      * Update cart item quantity
      */
-    @Transactional
     public CartResponse updateCartItem(Long productId, Integer quantity) {
         User user = getCurrentUser();
-        Cart cart = getOrCreateCart(user);
         
         // Validate
         if (productId == null) {
@@ -123,49 +76,41 @@ public class CartService {
             throw new RuntimeException("Quantity must be 0 or greater");
         }
         
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
-        
-        if (quantity == 0) {
-            // Remove item if quantity is 0
-            cartItemRepository.delete(cartItem);
-        } else {
-            // Check stock
-            if (product.getStock() < quantity) {
-                throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
-            }
+        CartStore.CartSnapshot cart = cartStore.update(user, activeCart -> {
+            CartStore.CartLine line = requireLine(activeCart, productId);
             
-            cartItem.setQuantity(quantity);
-            cartItemRepository.save(cartItem);
-        }
+            if (quantity == 0) {
+                // Remove item if quantity is 0
+                activeCart.removeLine(productId);
+            } else {
+                // Check stock
+                if (line.stock() < quantity) {
+                    throw new RuntimeException("Insufficient stock. Available: " + line.stock());
+                }
+                
+                activeCart.putLine(line.withQuantity(quantity));
+            }
+        });
         
-        return getCart();
+        return toCartResponse(user, cart);
     }
 
     /**
      * Remove item from cart
      */
-    @Transactional
     public CartResponse removeFromCart(Long productId) {
         User user = getCurrentUser();
-        Cart cart = getOrCreateCart(user);
         
         if (productId == null) {
             throw new RuntimeException("Product ID is required");
         }
         
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        CartStore.CartSnapshot cart = cartStore.update(user, activeCart -> {
+            requireLine(activeCart, productId);
+            activeCart.removeLine(productId);
+        });
         
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
-        
-        cartItemRepository.delete(cartItem);
-        
-        return getCart();
+        return toCartResponse(user, cart);
     }
 
     /**
@@ -173,47 +118,21 @@ public class CartService {
      */
     public CartResponse getCart() {
         User user = getCurrentUser();
-        Cart cart = getOrCreateCart(user);
-        
-        List<CartItem> cartItems = cartItemRepository.findByCart(cart);
-        
-        List<CartItemResponse> items = cartItems.stream()
-                .map(this::convertToCartItemResponse)
-                .collect(Collectors.toList());
-        
-        double totalAmount = items.stream()
-                .mapToDouble(CartItemResponse::getSubtotal)
-                .sum();
-        
-        int totalItems = items.stream()
-                .mapToInt(CartItemResponse::getQuantity)
-                .sum();
-        
-        return CartResponse.builder()
-                .id(cart.getId())
-                .userId(user.getId())
-                .items(items)
-                .totalAmount(totalAmount)
-                .totalItems(totalItems)
-                .createdAt(cart.getCreatedAt())
-                .build();
+        return toCartResponse(user, cartStore.get(user));
     }
 
     /**
      * Clear cart
      */
-    @Transactional
     public void clearCart() {
         User user = getCurrentUser();
-        Cart cart = getOrCreateCart(user);
-        
-        List<CartItem> cartItems = cartItemRepository.findByCart(cart);
         
-        if (cartItems.isEmpty()) {
-            throw new RuntimeException("Cart is already empty");
-        }
-        
-        cartItemRepository.deleteAll(cartItems);
+        cartStore.update(user, activeCart -> {
+            if (activeCart.isEmpty()) {
+                throw new RuntimeException("Cart is already empty");
+            }
+            activeCart.clear();
+        });
     }
 
     /**
@@ -221,35 +140,68 @@ public class CartService {
      */
     public int getCartItemCount() {
         User user = getCurrentUser();
-        Cart cart = getOrCreateCart(user);
-        
-        List<CartItem> cartItems = cartItemRepository.findByCart(cart);
         
-        return cartItems.stream()
-                .mapToInt(CartItem::getQuantity)
+        return cartStore.get(user).lines().stream()
+                .mapToInt(CartStore.CartLine::quantity)
                 .sum();
     }
 
     // Helper methods
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
+    }
+
+    private CartStore.CartLine findLine(User user, Long productId) {
+        return cartStore.get(user).lines().stream()
+                .filter(line -> line.productId().equals(productId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private CartStore.CartLine requireLine(CartStore.ActiveCart activeCart, Long productId) {
+        CartStore.CartLine line = activeCart.getLine(productId);
+        if (line == null) {
+            if (!productRepository.existsById(productId)) {
+                throw new RuntimeException("Product not found with id: " + productId);
+            }
+            throw new RuntimeException("Item not found in cart");
+        }
+        return line;
+    }
+
+    private CartResponse toCartResponse(User user, CartStore.CartSnapshot cart) {
+        List<CartItemResponse> items = cart.lines().stream()
+                .map(this::convertToCartItemResponse)
+                .collect(Collectors.toList());
+        
+        double totalAmount = items.stream()
+                .mapToDouble(CartItemResponse::getSubtotal)
+                .sum();
+        
+        int totalItems = items.stream()
+                .mapToInt(CartItemResponse::getQuantity)
+                .sum();
+        
+        return CartResponse.builder()
+                .id(cart.cartId())
+                .userId(user.getId())
+                .items(items)
+                .totalAmount(totalAmount)
+                .totalItems(totalItems)
+                .createdAt(cart.createdAt())
+                .build();
     }
 
-    private CartItemResponse convertToCartItemResponse(CartItem cartItem) {
-        Product product = cartItem.getProduct();
-        double subtotal = product.getPrice() * cartItem.getQuantity();
+    private CartItemResponse convertToCartItemResponse(CartStore.CartLine line) {
+        double subtotal = line.price() * line.quantity();
         
         return CartItemResponse.builder()
-                .id(cartItem.getId())
-                .productId(product.getId())
-                .productName(product.getName())
-                .productImage(product.getImageUrl())
-                .unitPrice(product.getPrice())
-                .quantity(cartItem.getQuantity())
+                .productId(line.productId())
+                .productName(line.productName())
+                .productImage(line.productImage())
+                .unitPrice(line.price())
+                .quantity(line.quantity())
                 .subtotal(subtotal)
                 .build();
     }
@@ -0,0 +1,477 @@
+package com.shopapplication.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.shopapplication.models.Cart;
+import com.shopapplication.models.CartItem;
+import com.shopapplication.models.Product;
+import com.shopapplication.models.User;
+import com.shopapplication.repository.CartItemRepository;
+import com.shopapplication.repository.CartRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind store for shopping carts
+ * - Active carts live in a bounded map keyed by user id; reads and mutations never touch the database
+ *   once a cart is loaded
+ * - Changes are written to cart_items in JDBC batches: periodically, before checkout, when a cart is
+ *   evicted from the map and on shutdown
+ * - An evicted cart is parked until its changes are written: a reload takes it back instead of reading
+ *   stale rows, and a failed write is retried by the next periodic flush
+ * - Each line keeps a snapshot of the product (name, image, price, stock), refreshed when an admin edits the product
+ */
+@Slf4j
+@Component
+public class CartStore {
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO cart_items (id, cart_id, product_id, quantity) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE cart_items SET quantity = ? WHERE cart_id = ? AND product_id = ?";
+    private static final String DELETE_ITEM_SQL =
+            "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+    private static final String DELETE_PRODUCT_ITEMS_SQL =
+            "DELETE FROM cart_items WHERE product_id = ?";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final SequenceIdAllocator sequenceIdAllocator;
+    // Flushes commit on their own, independently of any caller transaction (e.g. checkout)
+    private final TransactionTemplate flushTransaction;
+
+    private final Cache<Long, ActiveCart> carts;
+    // Evicted carts whose changes may not be written yet
+    private final Map<Long, ActiveCart> evicted = new ConcurrentHashMap<>();
+
+    public CartStore(CartRepository cartRepository,
+                     CartItemRepository cartItemRepository,
+                     JdbcTemplate jdbcTemplate,
+                     DashboardAggregateStore dashboardAggregateStore,
+                     SequenceIdAllocator sequenceIdAllocator,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${cart.store.max-size:10000}") long maxSize,
+                     @Value("${cart.store.idle-minutes:30}") long idleMinutes) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dashboardAggregateStore = dashboardAggregateStore;
+        this.sequenceIdAllocator = sequenceIdAllocator;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                // Runs under the entry's lock before it disappears: only parks the cart, so a reload finds it
+                .evictionListener((Long userId, ActiveCart cart, RemovalCause cause) -> {
+                    if (cart != null) {
+                        evicted.put(userId, cart);
+                    }
+                })
+                // Runs afterwards on Caffeine's executor
+                .removalListener((Long userId, ActiveCart cart, RemovalCause cause) -> {
+                    if (cause.wasEvicted() && cart != null) {
+                        flushEvicted(userId, cart);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Current contents of the user's cart (loaded, or created, on first access)
+     */
+    public CartSnapshot get(User user) {
+        ActiveCart cart = activeCart(user);
+        synchronized (cart) {
+            return cart.snapshot();
+        }
+    }
+
+    /**
+     * Apply a change to the user's cart atomically
+     * - The change may throw to reject the update; the cart is left untouched in that case
+     */
+    public CartSnapshot update(User user, Consumer<ActiveCart> change) {
+        while (true) {
+            ActiveCart cart = activeCart(user);
+            synchronized (cart) {
+                // Evicted since it was looked up: its last flush may not see the change, use the current cart
+                if (carts.asMap().get(user.getId()) != cart) {
+                    continue;
+                }
+                Map<Long, CartLine> before = new LinkedHashMap<>(cart.lines);
+                try {
+                    change.accept(cart);
+                } catch (RuntimeException e) {
+                    cart.lines.clear();
+                    cart.lines.putAll(before);
+                    throw e;
+                }
+                if (!before.equals(cart.lines)) {
+                    cart.version++;
+                }
+                return cart.snapshot();
+            }
+        }
+    }
+
+    /**
+     * Write the user's pending cart changes now (checkout reads the cart from the database)
+     */
+    public void flush(Long userId) {
+        ActiveCart cart = find(userId);
+        if (cart != null) {
+            flush(List.of(cart), true);
+        }
+    }
+
+    /**
+     * Drop the ordered lines from the user's cart after checkout deleted their rows (flush(userId) first)
+     * - ordered: productId -> quantity of the cart_items rows checkout read and deleted
+     * - Inside a transaction this happens once it commits
+     * - Changes made after checkout's flush are kept: a line still at its ordered quantity is dropped, any
+     *   other line stays (an ordered product whose quantity changed meanwhile is written again as a new row)
+     */
+    public void evict(Long userId, Map<Long, Integer> ordered) {
+        TransactionCallbacks.afterCommit(() -> evictCheckedOut(userId, ordered));
+    }
+
+    /**
+     * Update the product snapshot in every active cart holding the product
+     */
+    public void refreshProduct(Product product) {
+        for (ActiveCart cart : allCarts()) {
+            synchronized (cart) {
+                CartLine line = cart.lines.get(product.getId());
+                if (line != null) {
+                    cart.lines.put(product.getId(), CartLine.of(product, line.quantity()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted product from every cart, in memory and in cart_items
+     * - Call before deleting the product row, so no flush can write a line that references it afterwards
+     */
+    public void removeProduct(Long productId) {
+        for (ActiveCart cart : allCarts()) {
+            // Waits for an in-flight flush, which would otherwise record the line as persisted again
+            cart.flushLock.lock();
+            try {
+                synchronized (cart) {
+                    cart.lines.remove(productId);
+                    cart.persisted.remove(productId);
+                }
+            } finally {
+                cart.flushLock.unlock();
+            }
+        }
+        flushTransaction.executeWithoutResult(status ->
+                dashboardAggregateStore.onCartItemsChanged(-jdbcTemplate.update(DELETE_PRODUCT_ITEMS_SQL, productId)));
+    }
+
+    /**
+     * Same as refreshProduct for many products, in one pass over the active carts
+     */
+    public void refreshProducts(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        products.forEach(product -> byId.put(product.getId(), product));
+        for (ActiveCart cart : allCarts()) {
+            synchronized (cart) {
+                cart.lines.replaceAll((productId, line) -> {
+                    Product product = byId.get(productId);
+                    return product != null ? CartLine.of(product, line.quantity()) : line;
+                });
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.flush.interval-ms:2000}")
+    public void flushAll() {
+        flush(new ArrayList<>(carts.asMap().values()), false);
+        evicted.forEach(this::flushEvicted);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(allCarts(), true);
+    }
+
+    // Internal helpers
+
+    private ActiveCart activeCart(User user) {
+        return carts.get(user.getId(), userId -> {
+            // An evicted cart may hold changes the database does not have yet
+            ActiveCart parked = evicted.remove(userId);
+            return parked != null ? parked : load(user);
+        });
+    }
+
+    private ActiveCart find(Long userId) {
+        ActiveCart cart = carts.getIfPresent(userId);
+        return cart != null ? cart : evicted.get(userId);
+    }
+
+    private List<ActiveCart> allCarts() {
+        List<ActiveCart> all = new ArrayList<>(carts.asMap().values());
+        all.addAll(evicted.values());
+        return all;
+    }
+
+    /**
+     * Write an evicted cart and forget it once it is clean; on failure it stays parked for the next flushAll
+     */
+    private void flushEvicted(Long userId, ActiveCart cart) {
+        try {
+            flush(List.of(cart), true);
+        } catch (RuntimeException e) {
+            log.warn("Could not flush evicted cart {}", cart.cartId, e);
+            return;
+        }
+        synchronized (cart) {
+            if (cart.version == cart.flushedVersion) {
+                evicted.remove(userId, cart);
+            }
+        }
+    }
+
+    private ActiveCart load(User user) {
+        Cart cart = cartRepository.findByUserId(user.getId())
+                .orElseGet(() -> cartRepository.save(Cart.builder()
+                        .user(user)
+                        .createdAt(LocalDateTime.now())
+                        .build()));
+
+        ActiveCart activeCart = new ActiveCart(cart.getId(), cart.getCreatedAt());
+        for (CartItem item : cartItemRepository.findWithProductByCartId(cart.getId())) {
+            activeCart.lines.put(item.getProduct().getId(), CartLine.of(item.getProduct(), item.getQuantity()));
+            activeCart.persisted.put(item.getProduct().getId(), item.getQuantity());
+        }
+        return activeCart;
+    }
+
+    private void evictCheckedOut(Long userId, Map<Long, Integer> ordered) {
+        ActiveCart cart = find(userId);
+        if (cart == null) {
+            return;
+        }
+        cart.flushLock.lock();
+        try {
+            synchronized (cart) {
+                // Nothing changed since the last flush: the database now holds exactly what is left
+                if (cart.version == cart.flushedVersion) {
+                    carts.asMap().remove(userId, cart);
+                    evicted.remove(userId, cart);
+                    return;
+                }
+                ordered.forEach((productId, quantity) -> {
+                    CartLine line = cart.lines.get(productId);
+                    if (line != null && line.quantity() == quantity) {
+                        cart.lines.remove(productId);
+                    }
+                    // Its row is gone; rows flushed for other products since checkout read the cart are not
+                    cart.persisted.remove(productId);
+                });
+            }
+        } finally {
+            cart.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write the changes of every dirty cart in one transaction: one batch each of inserts, updates and deletes
+     * - wait=false skips carts another flush is already writing (they are picked up next time)
+     * - If the combined batch fails, each cart is retried in its own transaction, so one bad cart cannot
+     *   hold back the others; a cart that still fails stays dirty (and the failure is rethrown when it
+     *   was the only cart, e.g. the flush before checkout)
+     */
+    private void flush(List<ActiveCart> candidates, boolean wait) {
+        List<PendingFlush> pending = new ArrayList<>();
+        try {
+            for (ActiveCart cart : candidates) {
+                if (wait) {
+                    cart.flushLock.lock();
+                } else if (!cart.flushLock.tryLock()) {
+                    continue;
+                }
+                synchronized (cart) {
+                    if (cart.version == cart.flushedVersion) {
+                        cart.flushLock.unlock();
+                        continue;
+                    }
+                    Map<Long, Integer> quantities = new HashMap<>();
+                    cart.lines.forEach((productId, line) -> quantities.put(productId, line.quantity()));
+                    pending.add(new PendingFlush(cart, cart.version, quantities));
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                write(pending);
+            } catch (RuntimeException e) {
+                if (pending.size() == 1) {
+                    throw e;
+                }
+                for (PendingFlush flush : pending) {
+                    try {
+                        write(List.of(flush));
+                    } catch (RuntimeException cartFailure) {
+                        log.warn("Could not flush cart {}", flush.cart.cartId, cartFailure);
+                    }
+                }
+            }
+        } finally {
+            for (PendingFlush flush : pending) {
+                flush.cart.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write the given carts' diffs against cart_items in one transaction, then record them as persisted
+     */
+    private void write(List<PendingFlush> pending) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (PendingFlush flush : pending) {
+            Long cartId = flush.cart.cartId;
+            Map<Long, Integer> persisted = flush.cart.persisted;
+            flush.quantities.forEach((productId, quantity) -> {
+                Integer previous = persisted.get(productId);
+                if (previous == null) {
+                    // id is filled in just before the insert
+                    inserts.add(new Object[]{null, cartId, productId, quantity});
+                } else if (!previous.equals(quantity)) {
+                    updates.add(new Object[]{quantity, cartId, productId});
+                }
+            });
+            for (Long productId : persisted.keySet()) {
+                if (!flush.quantities.containsKey(productId)) {
+                    deletes.add(new Object[]{cartId, productId});
+                }
+            }
+        }
+
+        flushTransaction.executeWithoutResult(status -> {
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, deletes);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_ITEM_SQL, updates);
+            }
+            if (!inserts.isEmpty()) {
+                List<Long> ids = sequenceIdAllocator.allocate(SequenceIdAllocator.CART_ITEMS_SEQUENCE, inserts.size());
+                for (int i = 0; i < inserts.size(); i++) {
+                    inserts.get(i)[0] = ids.get(i);
+                }
+                jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+            }
+            dashboardAggregateStore.onCartItemsChanged(inserts.size() - deletes.size());
+        });
+
+        for (PendingFlush flush : pending) {
+            synchronized (flush.cart) {
+                flush.cart.persisted = flush.quantities;
+                flush.cart.flushedVersion = flush.version;
+            }
+        }
+    }
+
+    /**
+     * Product snapshot and quantity of one cart line
+     */
+    public record CartLine(Long productId, String productName, String productImage, Double price, Integer stock,
+                           int quantity) {
+
+        static CartLine of(Product product, int quantity) {
+            return new CartLine(product.getId(), product.getName(), product.getImageUrl(), product.getPrice(),
+                    product.getStock(), quantity);
+        }
+
+        CartLine withQuantity(int newQuantity) {
+            return new CartLine(productId, productName, productImage, price, stock, newQuantity);
+        }
+    }
+
+    /**
+     * Immutable copy of a cart handed out to callers
+     */
+    public record CartSnapshot(Long cartId, LocalDateTime createdAt, List<CartLine> lines) {
+    }
+
+    /**
+     * Mutable cart held in memory; accessed only through update() while its monitor is held
+     */
+    public static class ActiveCart {
+        private final Long cartId;
+        private final LocalDateTime createdAt;
+        // productId -> line, in the order items were added
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        // productId -> quantity as currently stored in cart_items
+        private Map<Long, Integer> persisted = new HashMap<>();
+        private long version;
+        private long flushedVersion;
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        private ActiveCart(Long cartId, LocalDateTime createdAt) {
+            this.cartId = cartId;
+            this.createdAt = createdAt;
+        }
+
+        CartLine getLine(Long productId) {
+            return lines.get(productId);
+        }
+
+        void putLine(CartLine line) {
+            lines.put(line.productId(), line);
+        }
+
+        void removeLine(Long productId) {
+            lines.remove(productId);
+        }
+
+        boolean isEmpty() {
+            return lines.isEmpty();
+        }
+
+        void clear() {
+            lines.clear();
+        }
+
+        private CartSnapshot snapshot() {
+            return new CartSnapshot(cartId, createdAt, List.copyOf(lines.values()));
+        }
+    }
+
+    private record PendingFlush(ActiveCart cart, long version, Map<Long, Integer> quantities) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.shopapplication.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version stamps for the public catalog, used as ETag / Last-Modified validators
+ * - One catalog-wide stamp (covers every listing page) and one stamp per product
+ * - A product change (details, stock, rating, create, delete) bumps both, once the change has committed
+ * - Products without a change since startup share the startup stamp, so a validator never needs a query
+ * - Versions start from the startup time, so validators handed out before a restart never match again
+ */
+@Component
+public class CatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+    private final Stamp initial = new Stamp(startedAt * 1000, startedAt);
+    private final AtomicReference<Stamp> catalog = new AtomicReference<>(initial);
+
+    // productId -> stamp of its last change since startup
+    private final Map<Long, Stamp> products = new ConcurrentHashMap<>();
+
+    /**
+     * Validators for the catalog listings (all products, by category)
+     */
+    public Tag forCatalog() {
+        Stamp stamp = catalog.get();
+        return new Tag("\"c" + stamp.version() + "\"", stamp.modifiedAt());
+    }
+
+    public Tag forProduct(Long productId) {
+        Stamp stamp = products.getOrDefault(productId, initial);
+        return new Tag("\"p" + productId + "-" + stamp.version() + "\"", stamp.modifiedAt());
+    }
+
+    /**
+     * Record a committed change to the product (call after the caches have dropped it)
+     */
+    public void productChanged(Long productId) {
+        long now = System.currentTimeMillis();
+        Stamp stamp = catalog.updateAndGet(previous ->
+                new Stamp(previous.version() + 1, Math.max(now, previous.modifiedAt())));
+        products.merge(productId, stamp, (current, next) -> current.version() > next.version() ? current : next);
+    }
+
+    private record Stamp(long version, long modifiedAt) {
+    }
+
+    /**
+     * One ETag (quoted, strong) and the Last-Modified time in epoch millis
+     */
+    public record Tag(String etag, long lastModified) {
+    }
+}
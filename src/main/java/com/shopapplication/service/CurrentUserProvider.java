@@ -0,0 +1,78 @@
+package com.shopapplication.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopapplication.models.Admin;
+import com.shopapplication.models.User;
+import com.shopapplication.repository.AdminRepository;
+import com.shopapplication.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Single place to resolve the authenticated user or admin
+ * - Per request: the principal the JWT filter put in the SecurityContext is returned as-is
+ * - Across requests: principals are kept in a short-TTL cache keyed by email, so the filter
+ *   does not hit the users/admins tables on every call
+ * - Call invalidate(email) after changing a user's profile or password
+ */
+@Component
+public class CurrentUserProvider {
+
+    private final UserRepository userRepository;
+    private final AdminRepository adminRepository;
+    private final Cache<String, UserDetails> principals;
+
+    public CurrentUserProvider(UserRepository userRepository,
+                               AdminRepository adminRepository,
+                               @Value("${security.principal-cache.ttl-seconds:30}") long ttlSeconds,
+                               @Value("${security.principal-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.adminRepository = adminRepository;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Load a principal by email: User table first, then Admin table (null if neither)
+     */
+    public UserDetails loadPrincipal(String email) {
+        return principals.get(email, key -> {
+            UserDetails user = userRepository.findByEmail(key).orElse(null);
+            return user != null ? user : adminRepository.findByEmail(key).orElse(null);
+        });
+    }
+
+    public User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        if (authentication != null && loadPrincipal(authentication.getName()) instanceof User user) {
+            return user;
+        }
+        throw new RuntimeException("User not found");
+    }
+
+    public Admin getCurrentAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Admin admin) {
+            return admin;
+        }
+        if (authentication != null && loadPrincipal(authentication.getName()) instanceof Admin admin) {
+            return admin;
+        }
+        throw new RuntimeException("Admin not found");
+    }
+
+    public void invalidate(String email) {
+        principals.invalidate(email);
+    }
+}
@@ -0,0 +1,468 @@
+package com.shopapplication.service;
+
+import com.shopapplication.dto.AdminDashboardStats;
+import com.shopapplication.dto.HourlyAmount;
+import com.shopapplication.dto.HourlyCount;
+import com.shopapplication.dto.OrderStatusCount;
+import com.shopapplication.dto.PaymentStatusCount;
+import com.shopapplication.dto.RatingSummary;
+import com.shopapplication.dto.StockSummary;
+import com.shopapplication.models.*;
+import com.shopapplication.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-memory dashboard aggregates.
+ * - Counters are updated by the services as orders, payments, reviews, products, users,
+ *   notifications and cart items are written (after the surrounding transaction commits)
+ * - Time-based figures are kept in hourly buckets covering the last month
+ * - Rebuilt from the database once at startup, so reads never scan the tables
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardAggregateStore {
+
+    static final int LOW_STOCK_THRESHOLD = 10;
+    static final Set<OrderStatus> REVENUE_STATUSES =
+            Collections.unmodifiableSet(EnumSet.of(OrderStatus.PAID, OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+
+    private static final long RETENTION_DAYS = 32;
+
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final PaymentRepository paymentRepository;
+    private final ReviewRepository reviewRepository;
+    private final NotificationRepository notificationRepository;
+    private final CartItemRepository cartItemRepository;
+
+    private final LongAdder totalUsers = new LongAdder();
+    // Users with at least one order; counted, not tracked by id, so the store stays constant-size
+    private final LongAdder orderingUsers = new LongAdder();
+
+    private final LongAdder totalOrders = new LongAdder();
+    private final Map<OrderStatus, LongAdder> ordersByStatus = new EnumMap<>(OrderStatus.class);
+    private final DoubleAdder totalRevenue = new DoubleAdder();
+
+    private final LongAdder totalProducts = new LongAdder();
+    private final LongAdder lowStockProducts = new LongAdder();
+    private final LongAdder outOfStockProducts = new LongAdder();
+
+    private final LongAdder totalPayments = new LongAdder();
+    private final Map<PaymentStatus, LongAdder> paymentsByStatus = new EnumMap<>(PaymentStatus.class);
+
+    private final LongAdder totalReviews = new LongAdder();
+    private final LongAdder ratingSum = new LongAdder();
+
+    private final LongAdder cartItemsTotal = new LongAdder();
+
+    private final ConcurrentSkipListMap<LocalDateTime, HourBucket> buckets = new ConcurrentSkipListMap<>();
+
+    {
+        for (OrderStatus status : OrderStatus.values()) {
+            ordersByStatus.put(status, new LongAdder());
+        }
+        for (PaymentStatus status : PaymentStatus.values()) {
+            paymentsByStatus.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Load the aggregates from the database once the application (and the data seeder) is ready
+     * - Grouped aggregate queries only; no entity is loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reset();
+        LocalDateTime since = LocalDateTime.now().minusDays(RETENTION_DAYS).truncatedTo(ChronoUnit.HOURS);
+
+        totalUsers.add(userRepository.count());
+        orderingUsers.add(orderRepository.countDistinctOrderingUsers());
+
+        for (OrderStatusCount row : orderRepository.countByStatus()) {
+            totalOrders.add(row.count());
+            if (row.status() != null) {
+                ordersByStatus.get(row.status()).add(row.count());
+            }
+        }
+        Double revenue = orderRepository.sumTotalAmountByStatusIn(REVENUE_STATUSES);
+        totalRevenue.add(revenue != null ? revenue : 0.0);
+
+        StockSummary stock = productRepository.summarizeStock(LOW_STOCK_THRESHOLD);
+        totalProducts.add(stock.total());
+        lowStockProducts.add(orZero(stock.lowStock()));
+        outOfStockProducts.add(orZero(stock.outOfStock()));
+
+        for (PaymentStatusCount row : paymentRepository.countByStatus()) {
+            totalPayments.add(row.count());
+            if (row.status() != null) {
+                paymentsByStatus.get(row.status()).add(row.count());
+            }
+        }
+
+        RatingSummary ratings = reviewRepository.summarizeRatings();
+        totalReviews.add(ratings.count());
+        ratingSum.add(orZero(ratings.ratingSum()));
+
+        cartItemsTotal.add(cartItemRepository.count());
+
+        for (HourlyCount row : userRepository.countRegistrationsPerHour(since)) {
+            bucketFor(hourOf(row)).newUsers.add(row.count());
+        }
+        for (HourlyCount row : orderRepository.countOrdersPerHour(since)) {
+            bucketFor(hourOf(row)).orders.add(row.count());
+        }
+        for (HourlyAmount row : orderRepository.sumRevenuePerHour(REVENUE_STATUSES, since)) {
+            bucketFor(LocalDateTime.of(row.year(), row.month(), row.day(), row.hour(), 0)).revenue.add(row.amount());
+        }
+        for (HourlyCount row : reviewRepository.countReviewsPerHour(since)) {
+            bucketFor(hourOf(row)).reviews.add(row.count());
+        }
+        for (HourlyCount row : notificationRepository.countNotificationsPerHour(since)) {
+            bucketFor(hourOf(row)).notifications.add(row.count());
+        }
+    }
+
+    /**
+     * Build the dashboard statistics from the current aggregates
+     */
+    public AdminDashboardStats snapshot() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfToday = now.toLocalDate().atStartOfDay();
+        LocalDateTime startOfWeek = now.minusWeeks(1);
+        LocalDateTime startOfMonth = now.minusMonths(1);
+
+        long pendingOrders = ordersByStatus.get(OrderStatus.CREATED).sum()
+                + ordersByStatus.get(OrderStatus.PENDING_PAYMENT).sum();
+        long paidOrders = ordersByStatus.get(OrderStatus.PAID).sum()
+                + ordersByStatus.get(OrderStatus.SHIPPED).sum()
+                + ordersByStatus.get(OrderStatus.DELIVERED).sum();
+        double revenue = totalRevenue.sum();
+
+        long payments = totalPayments.sum();
+        long successfulPayments = paymentsByStatus.get(PaymentStatus.SUCCEEDED).sum();
+        long reviews = totalReviews.sum();
+
+        Map<String, Long> orderStatusDistribution = new HashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            orderStatusDistribution.put(status.name(), ordersByStatus.get(status).sum());
+        }
+
+        return AdminDashboardStats.builder()
+                .totalUsers(totalUsers.sum())
+                .activeUsers(orderingUsers.sum())
+                .newUsersToday(sumSince(startOfToday, bucket -> bucket.newUsers.sum()))
+                .newUsersThisWeek(sumSince(startOfWeek, bucket -> bucket.newUsers.sum()))
+                .newUsersThisMonth(sumSince(startOfMonth, bucket -> bucket.newUsers.sum()))
+                .totalOrders(totalOrders.sum())
+                .pendingOrders(pendingOrders)
+                .completedOrders(ordersByStatus.get(OrderStatus.DELIVERED).sum())
+                .cancelledOrders(ordersByStatus.get(OrderStatus.CANCELLED).sum())
+                .ordersToday(sumSince(startOfToday, bucket -> bucket.orders.sum()))
+                .ordersThisWeek(sumSince(startOfWeek, bucket -> bucket.orders.sum()))
+                .ordersThisMonth(sumSince(startOfMonth, bucket -> bucket.orders.sum()))
+                .totalRevenue(revenue)
+                .revenueToday(revenueSince(startOfToday))
+                .revenueThisWeek(revenueSince(startOfWeek))
+                .revenueThisMonth(revenueSince(startOfMonth))
+                .averageOrderValue(paidOrders > 0 ? revenue / paidOrders : 0.0)
+                .totalProducts(totalProducts.sum())
+                .lowStockProducts(lowStockProducts.sum())
+                .outOfStockProducts(outOfStockProducts.sum())
+                .totalPayments(payments)
+                .successfulPayments(successfulPayments)
+                .failedPayments(paymentsByStatus.get(PaymentStatus.FAILED).sum())
+                .successRate(payments > 0 ? (successfulPayments * 100.0 / payments) : 0.0)
+                .totalReviews(reviews)
+                .averageRating(reviews > 0 ? (double) ratingSum.sum() / reviews : 0.0)
+                .reviewsThisMonth(sumSince(startOfMonth, bucket -> bucket.reviews.sum()))
+                .orderStatusDistribution(orderStatusDistribution)
+                .notificationsToday(sumSince(startOfToday, bucket -> bucket.notifications.sum()))
+                .cartItemsTotal(cartItemsTotal.sum())
+                .build();
+    }
+
+    // Write hooks (applied once the current transaction commits)
+
+    public void onUserRegistered(User user) {
+        LocalDateTime createdAt = user.getCreatedAt();
+        TransactionCallbacks.afterCommit(() -> applyUserRegistered(createdAt));
+    }
+
+    /**
+     * firstOrder: the user had no order before this one (OrderService checks before saving it)
+     */
+    public void onOrderCreated(Order order, boolean firstOrder) {
+        OrderStatus status = order.getStatus();
+        LocalDateTime createdAt = order.getCreatedAt();
+        TransactionCallbacks.afterCommit(() -> {
+            totalOrders.increment();
+            ordersByStatus.get(status).increment();
+            if (firstOrder) {
+                orderingUsers.increment();
+            }
+            bucketFor(createdAt).orders.increment();
+        });
+    }
+
+    public void onOrderStatusChanged(Order order, OrderStatus oldStatus, OrderStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        Double amount = order.getTotalAmount();
+        LocalDateTime createdAt = order.getCreatedAt();
+        TransactionCallbacks.afterCommit(() -> {
+            ordersByStatus.get(oldStatus).decrement();
+            ordersByStatus.get(newStatus).increment();
+            boolean wasRevenue = isRevenueStatus(oldStatus);
+            boolean isRevenue = isRevenueStatus(newStatus);
+            if (wasRevenue != isRevenue) {
+                applyRevenue(amount, createdAt, isRevenue ? 1 : -1);
+            }
+        });
+    }
+
+    public void onProductCreated(Integer stock) {
+        TransactionCallbacks.afterCommit(() -> applyProductCreated(stock));
+    }
+
+    public void onProductStockChanged(Integer oldStock, Integer newStock) {
+        if (stockClass(oldStock) == stockClass(newStock)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            adjustStockClass(oldStock, -1);
+            adjustStockClass(newStock, 1);
+        });
+    }
+
+    public void onProductDeleted(Integer stock) {
+        TransactionCallbacks.afterCommit(() -> {
+            totalProducts.decrement();
+            adjustStockClass(stock, -1);
+        });
+    }
+
+    public void onPaymentCreated(PaymentStatus status) {
+        TransactionCallbacks.afterCommit(() -> applyPaymentCreated(status));
+    }
+
+    public void onPaymentStatusChanged(PaymentStatus oldStatus, PaymentStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            paymentsByStatus.get(oldStatus).decrement();
+            paymentsByStatus.get(newStatus).increment();
+        });
+    }
+
+    public void onReviewCreated(Review review) {
+        Integer rating = review.getRating();
+        LocalDateTime createdAt = review.getCreatedAt();
+        TransactionCallbacks.afterCommit(() -> applyReviewCreated(rating, createdAt));
+    }
+
+    public void onReviewRatingChanged(Integer oldRating, Integer newRating) {
+        if (oldRating == null || newRating == null || oldRating.equals(newRating)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> ratingSum.add(newRating - oldRating));
+    }
+
+    public void onReviewDeleted(Review review) {
+        Integer rating = review.getRating();
+        LocalDateTime createdAt = review.getCreatedAt();
+        TransactionCallbacks.afterCommit(() -> {
+            totalReviews.decrement();
+            if (rating != null) {
+                ratingSum.add(-rating);
+            }
+            HourBucket bucket = existingBucket(createdAt);
+            if (bucket != null) {
+                bucket.reviews.decrement();
+            }
+        });
+    }
+
+    public void onNotificationsCreated(int count, LocalDateTime createdAt) {
+        if (count <= 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> applyNotificationsCreated(count, createdAt));
+    }
+
+    public void onCartItemsChanged(long delta) {
+        if (delta == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> cartItemsTotal.add(delta));
+    }
+
+    // Internal helpers
+
+    private void reset() {
+        totalUsers.reset();
+        orderingUsers.reset();
+        totalOrders.reset();
+        ordersByStatus.values().forEach(LongAdder::reset);
+        totalRevenue.reset();
+        totalProducts.reset();
+        lowStockProducts.reset();
+        outOfStockProducts.reset();
+        totalPayments.reset();
+        paymentsByStatus.values().forEach(LongAdder::reset);
+        totalReviews.reset();
+        ratingSum.reset();
+        cartItemsTotal.reset();
+        buckets.clear();
+    }
+
+    private static LocalDateTime hourOf(HourlyCount row) {
+        return LocalDateTime.of(row.year(), row.month(), row.day(), row.hour(), 0);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private void applyUserRegistered(LocalDateTime createdAt) {
+        totalUsers.increment();
+        bucketFor(createdAt).newUsers.increment();
+    }
+
+    private void applyRevenue(Double amount, LocalDateTime createdAt, int sign) {
+        if (amount == null) {
+            return;
+        }
+        totalRevenue.add(sign * amount);
+        HourBucket bucket = existingOrNewBucket(createdAt);
+        if (bucket != null) {
+            bucket.revenue.add(sign * amount);
+        }
+    }
+
+    private void applyProductCreated(Integer stock) {
+        totalProducts.increment();
+        adjustStockClass(stock, 1);
+    }
+
+    private void applyPaymentCreated(PaymentStatus status) {
+        totalPayments.increment();
+        if (status != null) {
+            paymentsByStatus.get(status).increment();
+        }
+    }
+
+    private void applyReviewCreated(Integer rating, LocalDateTime createdAt) {
+        totalReviews.increment();
+        if (rating != null) {
+            ratingSum.add(rating);
+        }
+        bucketFor(createdAt).reviews.increment();
+    }
+
+    private void applyNotificationsCreated(int count, LocalDateTime createdAt) {
+        bucketFor(createdAt).notifications.add(count);
+    }
+
+    private boolean isRevenueStatus(OrderStatus status) {
+        return REVENUE_STATUSES.contains(status);
+    }
+
+    /**
+     * 0 = out of stock, 1 = low stock, 2 = in stock (or unknown)
+     */
+    private int stockClass(Integer stock) {
+        if (stock == null) {
+            return 2;
+        }
+        if (stock == 0) {
+            return 0;
+        }
+        return stock > 0 && stock < LOW_STOCK_THRESHOLD ? 1 : 2;
+    }
+
+    private void adjustStockClass(Integer stock, int delta) {
+        switch (stockClass(stock)) {
+            case 0 -> outOfStockProducts.add(delta);
+            case 1 -> lowStockProducts.add(delta);
+            default -> { }
+        }
+    }
+
+    private long sumSince(LocalDateTime since, Function<HourBucket, Long> value) {
+        long sum = 0;
+        for (HourBucket bucket : buckets.tailMap(since.truncatedTo(ChronoUnit.HOURS)).values()) {
+            sum += value.apply(bucket);
+        }
+        return sum;
+    }
+
+    private double revenueSince(LocalDateTime since) {
+        double sum = 0.0;
+        for (HourBucket bucket : buckets.tailMap(since.truncatedTo(ChronoUnit.HOURS)).values()) {
+            sum += bucket.revenue.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * Bucket for an event; events outside the retention window (or without a timestamp) are discarded
+     */
+    private HourBucket bucketFor(LocalDateTime timestamp) {
+        HourBucket bucket = existingOrNewBucket(timestamp);
+        return bucket != null ? bucket : HourBucket.DISCARDED;
+    }
+
+    private HourBucket existingOrNewBucket(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        LocalDateTime oldest = LocalDateTime.now().minusDays(RETENTION_DAYS).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime key = timestamp.truncatedTo(ChronoUnit.HOURS);
+        if (key.isBefore(oldest)) {
+            return null;
+        }
+        HourBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new HourBucket());
+            buckets.headMap(oldest).clear();
+        }
+        return bucket;
+    }
+
+    private HourBucket existingBucket(LocalDateTime timestamp) {
+        return timestamp != null ? buckets.get(timestamp.truncatedTo(ChronoUnit.HOURS)) : null;
+    }
+
+    /**
+     * Per-hour rollup of time-based dashboard figures
+     */
+    private static class HourBucket {
+        /** Sink for events older than the retention window, never read */
+        private static final HourBucket DISCARDED = new HourBucket();
+
+        private final LongAdder newUsers = new LongAdder();
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder reviews = new LongAdder();
+        private final LongAdder notifications = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+    }
+}
@@ -0,0 +1,126 @@
+package com.shopapplication.service;
+
+import com.shopapplication.dto.AdminDashboardStats;
+import com.shopapplication.dto.OrderStatusCount;
+import com.shopapplication.dto.PaymentStatusCount;
+import com.shopapplication.dto.PeriodAmounts;
+import com.shopapplication.dto.PeriodCounts;
+import com.shopapplication.dto.RatingSummary;
+import com.shopapplication.dto.StockSummary;
+import com.shopapplication.models.OrderStatus;
+import com.shopapplication.models.PaymentStatus;
+import com.shopapplication.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dashboard statistics computed from the tables (AdminService "database" source)
+ * - Its own bean so callers always go through the proxy and the read-only transaction applies
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardStatsQueryService {
+
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final PaymentRepository paymentRepository;
+    private final ReviewRepository reviewRepository;
+    private final NotificationRepository notificationRepository;
+    private final CartItemRepository cartItemRepository;
+
+    /**
+     * About a dozen aggregate queries; nothing is loaded per row, so cost does not grow with memory
+     */
+    @Transactional(readOnly = true)
+    public AdminDashboardStats queryDashboardStats() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfToday = now.toLocalDate().atStartOfDay();
+        LocalDateTime startOfWeek = now.minusWeeks(1);
+        LocalDateTime startOfMonth = now.minusMonths(1);
+
+        PeriodCounts users = userRepository.countRegistrations(startOfToday, startOfWeek, startOfMonth);
+        PeriodCounts orders = orderRepository.countOrders(startOfToday, startOfWeek, startOfMonth);
+        PeriodAmounts revenue = orderRepository.sumRevenue(
+                DashboardAggregateStore.REVENUE_STATUSES, startOfToday, startOfWeek, startOfMonth);
+
+        Map<String, Long> orderStatusDistribution = new HashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            orderStatusDistribution.put(status.name(), 0L);
+        }
+        for (OrderStatusCount row : orderRepository.countByStatus()) {
+            if (row.status() != null) {
+                orderStatusDistribution.put(row.status().name(), row.count());
+            }
+        }
+        long pendingOrders = orderStatusDistribution.get(OrderStatus.CREATED.name())
+                + orderStatusDistribution.get(OrderStatus.PENDING_PAYMENT.name());
+        long paidOrders = 0;
+        for (OrderStatus status : DashboardAggregateStore.REVENUE_STATUSES) {
+            paidOrders += orderStatusDistribution.get(status.name());
+        }
+        double totalRevenue = orZero(revenue.total());
+
+        StockSummary stock = productRepository.summarizeStock(DashboardAggregateStore.LOW_STOCK_THRESHOLD);
+
+        long totalPayments = 0;
+        long successfulPayments = 0;
+        long failedPayments = 0;
+        for (PaymentStatusCount row : paymentRepository.countByStatus()) {
+            totalPayments += row.count();
+            if (row.status() == PaymentStatus.SUCCEEDED) {
+                successfulPayments = row.count();
+            } else if (row.status() == PaymentStatus.FAILED) {
+                failedPayments = row.count();
+            }
+        }
+
+        RatingSummary ratings = reviewRepository.summarizeRatings();
+
+        return AdminDashboardStats.builder()
+                .totalUsers(users.total())
+                .activeUsers(orderRepository.countDistinctOrderingUsers())
+                .newUsersToday(orZero(users.today()))
+                .newUsersThisWeek(orZero(users.thisWeek()))
+                .newUsersThisMonth(orZero(users.thisMonth()))
+                .totalOrders(orders.total())
+                .pendingOrders(pendingOrders)
+                .completedOrders(orderStatusDistribution.get(OrderStatus.DELIVERED.name()))
+                .cancelledOrders(orderStatusDistribution.get(OrderStatus.CANCELLED.name()))
+                .ordersToday(orZero(orders.today()))
+                .ordersThisWeek(orZero(orders.thisWeek()))
+                .ordersThisMonth(orZero(orders.thisMonth()))
+                .totalRevenue(totalRevenue)
+                .revenueToday(orZero(revenue.today()))
+                .revenueThisWeek(orZero(revenue.thisWeek()))
+                .revenueThisMonth(orZero(revenue.thisMonth()))
+                .averageOrderValue(paidOrders > 0 ? totalRevenue / paidOrders : 0.0)
+                .totalProducts(stock.total())
+                .lowStockProducts(orZero(stock.lowStock()))
+                .outOfStockProducts(orZero(stock.outOfStock()))
+                .totalPayments(totalPayments)
+                .successfulPayments(successfulPayments)
+                .failedPayments(failedPayments)
+                .successRate(totalPayments > 0 ? (successfulPayments * 100.0 / totalPayments) : 0.0)
+                .totalReviews(ratings.count())
+                .averageRating(ratings.count() > 0 ? (double) orZero(ratings.ratingSum()) / ratings.count() : 0.0)
+                .reviewsThisMonth(reviewRepository.countByCreatedAtGreaterThanEqual(startOfMonth))
+                .orderStatusDistribution(orderStatusDistribution)
+                .notificationsToday(notificationRepository.countByCreatedAtGreaterThanEqual(startOfToday))
+                .cartItemsTotal(cartItemRepository.count())
+                .build();
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
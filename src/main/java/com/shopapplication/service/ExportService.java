@@ -0,0 +1,272 @@
+package com.shopapplication.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming exports of products, orders and payments as CSV or NDJSON
+ * - Rows are read through a forward-only cursor (JDBC fetch size, read-only transaction) and written to the
+ *   output as they arrive; no entity or result list is built, so memory does not grow with the row count
+ * - Rows are ordered by creation time; from/to optionally bound created_at (from inclusive, to exclusive)
+ */
+@Service
+public class ExportService {
+
+    public enum Dataset {
+        PRODUCTS("products", List.of(
+                new Column("id", "p.id"),
+                new Column("name", "p.name"),
+                new Column("description", "p.description"),
+                new Column("price", "p.price"),
+                new Column("stock", "p.stock"),
+                new Column("category", "p.category"),
+                new Column("imageUrl", "p.image_url"),
+                new Column("rating", "p.rating"),
+                new Column("ratingCount", "p.rating_count"),
+                new Column("createdAt", "p.created_at"),
+                new Column("updatedAt", "p.updated_at")),
+                "products p", "p"),
+        ORDERS("orders", List.of(
+                new Column("id", "o.id"),
+                new Column("userId", "o.user_id"),
+                new Column("userEmail", "u.email"),
+                new Column("status", "o.status"),
+                new Column("totalAmount", "o.total_amount"),
+                new Column("shippingAddress", "o.shipping_address"),
+                new Column("createdAt", "o.created_at"),
+                new Column("updatedAt", "o.updated_at")),
+                "orders o LEFT JOIN users u ON u.id = o.user_id", "o"),
+        PAYMENTS("payments", List.of(
+                new Column("id", "pm.id"),
+                new Column("orderId", "pm.order_id"),
+                new Column("userId", "o.user_id"),
+                new Column("amount", "pm.amount"),
+                new Column("status", "pm.status"),
+                new Column("paymentMethod", "pm.payment_method"),
+                new Column("createdAt", "pm.created_at")),
+                "payments pm LEFT JOIN orders o ON o.id = pm.order_id", "pm");
+
+        private final String fileName;
+        private final List<Column> columns;
+        private final String from;
+        private final String alias;
+
+        Dataset(String fileName, List<Column> columns, String from, String alias) {
+            this.fileName = fileName;
+            this.columns = columns;
+            this.from = from;
+            this.alias = alias;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public static Dataset fromParam(String value) {
+            try {
+                return Dataset.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("Unknown export: " + value);
+            }
+        }
+    }
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format fromParam(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid format: " + value);
+            }
+        }
+    }
+
+    private record Column(String name, String expression) {
+    }
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${exports.fetch-size:1000}") int fetchSize) {
+        // Own JdbcTemplate: the fetch size makes the driver read the result in chunks instead of all at once
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only uses a cursor inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every row of the dataset to out; runs until the last row is written or the client goes away
+     */
+    public void export(Dataset dataset, Format format, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        List<String> select = new ArrayList<>(dataset.columns.size());
+        dataset.columns.forEach(column -> select.add(column.expression()));
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", select))
+                .append(" FROM ").append(dataset.from).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>(2);
+        if (from != null) {
+            sql.append(" AND ").append(dataset.alias).append(".created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(dataset.alias).append(".created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY ").append(dataset.alias).append(".created_at, ").append(dataset.alias).append(".id");
+
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            RowWriter rows = format == Format.CSV
+                    ? new CsvRowWriter(writer, dataset.columns)
+                    : new NdjsonRowWriter(objectMapper.getFactory().createGenerator(writer), dataset.columns);
+            readOnlyTransaction.executeWithoutResult(status ->
+                    exportJdbcTemplate.query(sql.toString(), rs -> {
+                        try {
+                            rows.write(rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, args.toArray()));
+            rows.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Internal helpers
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static Object valueAt(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final int columnCount;
+
+        CsvRowWriter(Writer writer, List<Column> columns) throws IOException {
+            this.writer = writer;
+            this.columnCount = columns.size();
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = valueAt(rs, i + 1);
+                if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: quote fields holding a separator, quote or line break; double embedded quotes
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final List<Column> columns;
+
+        NdjsonRowWriter(JsonGenerator generator, List<Column> columns) {
+            this.generator = generator;
+            this.columns = columns;
+            // One object per line, nothing between them
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                generator.writeFieldName(columns.get(i).name());
+                generator.writeObject(valueAt(rs, i + 1));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
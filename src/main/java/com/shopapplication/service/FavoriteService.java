@@ -10,8 +10,6 @@ import com.shopapplication.repository.FavoriteRepository;
 import com.shopapplication.repository.ProductRepository;
 import com.shopapplication.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +24,7 @@ public class FavoriteService {
     private final FavoriteRepository favoriteRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final CurrentUserProvider currentUserProvider;
 
     /**
      * Add a product to user's favorites
@@ -213,10 +212,7 @@ public class FavoriteService {
     // Helper methods
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
     }
 
     private FavoriteResponse convertToResponse(Favorite favorite) {
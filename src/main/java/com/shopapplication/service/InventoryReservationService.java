@@ -0,0 +1,260 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.OrderItem;
+import com.shopapplication.models.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock reservations for checkout
+ * - Available stock per product is kept in its own atomic counter, so orders for different products
+ *   never contend and a sold-out product is rejected without touching the database
+ * - All lines of an order are reserved together, or none are
+ * - Reserved quantities are written to the products table in one batch of conditional updates
+ *   (stock = stock - ? WHERE stock >= ?), which stays correct even if a counter is too high; the write is
+ *   a separate step so checkout can issue it last and hold the product row locks only until commit
+ * - Counters are seeded lazily from a fresh read of the product row (never from a loaded entity, which may
+ *   predate a restock) and dropped whenever stock is set directly
+ * - A counter that looks too low is reseeded from the table once before the order is refused
+ * - Every stock change also drops the product from the catalog cache and updates the facet index
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryReservationService {
+
+    private static final String RESERVE_SQL =
+            "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String STOCK_SQL =
+            "SELECT stock FROM products WHERE id = ?";
+    private static final String RELEASE_SQL =
+            "UPDATE products SET stock = stock + ? WHERE id = ? RETURNING stock";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductFacetIndex productFacetIndex;
+
+    // productId -> stock available for new orders
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    /**
+     * Reserve stock for every database product in the order items against the in-memory counters
+     * - Must run inside the order transaction; a rollback gives the reservation back
+     * - Throws if any product does not have enough stock, leaving every counter untouched
+     * - Nothing is written yet: pass the result to {@link #write(Reservation)} as the last statement
+     *   before commit, so the product rows are locked as briefly as possible
+     */
+    public Reservation reserve(List<OrderItem> items) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock can only be reserved inside a transaction");
+        }
+        Map<Long, Line> lines = collectLines(items);
+        if (lines.isEmpty()) {
+            return new Reservation(List.of());
+        }
+
+        // Acquire in id order so two orders never hold each other's products half-reserved
+        List<Line> acquired = new ArrayList<>(lines.size());
+        for (Line line : lines.values()) {
+            Long productId = line.product.getId();
+            AtomicInteger counter = counterFor(productId);
+            boolean reseeded = false;
+            int current;
+            while (true) {
+                current = counter.get();
+                if (current >= line.quantity) {
+                    if (counter.compareAndSet(current, current - line.quantity)) {
+                        break;
+                    }
+                } else if (!reseeded) {
+                    // The counter may be behind the table (e.g. seeded just before a restock committed)
+                    counter = reseed(productId, counter);
+                    reseeded = true;
+                } else {
+                    acquired.forEach(InventoryReservationService::giveBack);
+                    throw new RuntimeException(String.format(
+                        "Insufficient stock for product '%s'. Available: %d, Requested: %d",
+                        line.product.getName(), Math.max(current, 0), line.quantity
+                    ));
+                }
+            }
+            line.counter = counter;
+            line.previousStock = current;
+            acquired.add(line);
+        }
+
+        TransactionCallbacks.afterRollback(() -> acquired.forEach(InventoryReservationService::giveBack));
+
+        Reservation reservation = new Reservation(acquired);
+        // A reservation that is never written would leave the counters below the table
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (!reservation.written) {
+                    throw new IllegalStateException("Stock reservation was not written before commit");
+                }
+            }
+        });
+        return reservation;
+    }
+
+    /**
+     * Write a reservation to the products table in one batch of conditional updates
+     * - Call it last in the order transaction (after the order, cart and notification writes are flushed):
+     *   the updated product rows stay locked until commit
+     * - Throws if the table has less stock than the counter promised; the transaction must then roll back
+     */
+    public void write(Reservation reservation) {
+        if (reservation.written) {
+            throw new IllegalStateException("Stock reservation was already written");
+        }
+        reservation.written = true;
+        List<Line> acquired = reservation.lines;
+        if (acquired.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(acquired.size());
+        for (Line line : acquired) {
+            batch.add(new Object[]{line.quantity, line.product.getId(), line.quantity});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, batch);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                // The counter was ahead of the table; reload it on next use
+                Line line = acquired.get(i);
+                available.remove(line.product.getId(), line.counter);
+                throw new RuntimeException(String.format(
+                    "Insufficient stock for product '%s'", line.product.getName()
+                ));
+            }
+        }
+
+        for (Line line : acquired) {
+            dashboardAggregateStore.onProductStockChanged(line.previousStock, line.previousStock - line.quantity);
+            productCatalogCache.evictProduct(line.product.getId());
+            productFacetIndex.adjustStock(line.product.getId(), -line.quantity);
+        }
+    }
+
+    /**
+     * Return the stock held by the order items (e.g. on cancellation)
+     * - The products table is updated in the current transaction, the counters once it commits
+     * - Dashboard stock transitions use the stock the UPDATE returned, not the counter or the loaded entity
+     */
+    public void release(List<OrderItem> items) {
+        Map<Long, Line> lines = collectLines(items);
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        for (Line line : lines.values()) {
+            List<Integer> stock = jdbcTemplate.queryForList(RELEASE_SQL, Integer.class, line.quantity, line.product.getId());
+            // Product deleted meanwhile: nothing to give back
+            if (stock.isEmpty() || stock.get(0) == null) {
+                continue;
+            }
+            int newStock = stock.get(0);
+            dashboardAggregateStore.onProductStockChanged(newStock - line.quantity, newStock);
+            productCatalogCache.evictProduct(line.product.getId());
+            productFacetIndex.adjustStock(line.product.getId(), line.quantity);
+        }
+
+        TransactionCallbacks.afterCommit(() -> {
+            for (Line line : lines.values()) {
+                AtomicInteger counter = available.get(line.product.getId());
+                if (counter != null) {
+                    counter.addAndGet(line.quantity);
+                }
+            }
+        });
+    }
+
+    /**
+     * Forget the counter of a product whose stock was set directly (admin update or delete)
+     */
+    public void evict(Long productId) {
+        TransactionCallbacks.afterCommit(() -> available.remove(productId));
+    }
+
+    // Helper methods
+
+    private AtomicInteger counterFor(Long productId) {
+        AtomicInteger counter = available.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        // Read outside the map's lock; a concurrent seed wins
+        AtomicInteger seeded = new AtomicInteger(readStock(productId));
+        counter = available.putIfAbsent(productId, seeded);
+        return counter != null ? counter : seeded;
+    }
+
+    private AtomicInteger reseed(Long productId, AtomicInteger stale) {
+        AtomicInteger fresh = new AtomicInteger(readStock(productId));
+        if (available.replace(productId, stale, fresh)) {
+            return fresh;
+        }
+        // Replaced or dropped meanwhile
+        return counterFor(productId);
+    }
+
+    // Stock as committed in the table; a deleted product has none
+    private int readStock(Long productId) {
+        List<Integer> stock = jdbcTemplate.queryForList(STOCK_SQL, Integer.class, productId);
+        return stock.isEmpty() || stock.get(0) == null ? 0 : stock.get(0);
+    }
+
+    private static Map<Long, Line> collectLines(List<OrderItem> items) {
+        Map<Long, Line> lines = new TreeMap<>();
+        for (OrderItem item : items) {
+            Product product = item.getProduct();
+            // External products have no stock to reserve
+            if (product == null) {
+                continue;
+            }
+            lines.computeIfAbsent(product.getId(), id -> new Line(product)).quantity += item.getQuantity();
+        }
+        return lines;
+    }
+
+    private static void giveBack(Line line) {
+        line.counter.addAndGet(line.quantity);
+    }
+
+    /**
+     * Stock taken from the counters by {@link #reserve(List)}, waiting to be written
+     */
+    public static final class Reservation {
+        private final List<Line> lines;
+        private boolean written;
+
+        private Reservation(List<Line> lines) {
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Total quantity of one product within an order
+     */
+    private static class Line {
+        private final Product product;
+        private int quantity;
+        private AtomicInteger counter;
+        private int previousStock;
+
+        private Line(Product product) {
+            this.product = product;
+        }
+    }
+}
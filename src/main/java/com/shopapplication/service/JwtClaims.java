@@ -0,0 +1,13 @@
+package com.shopapplication.service;
+
+import java.time.Instant;
+
+/**
+ * Verified contents of a JWT: produced once per token by JwtService.verifyToken
+ */
+public record JwtClaims(String email, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -1,9 +1,18 @@
 package com.shopapplication.service;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,10 +20,37 @@ import org.springframework.beans.factory.annotation.Value;
 @Service
 public class JwtService {
 
-    private final String secretKey;
+    private final Key signInKey;
+    private final JwtParser parser;
 
-    public JwtService(@Value("${jwt.secret}") String secretKey) {
-        this.secretKey = secretKey;
+    // Verified tokens keyed by SHA-256 of the token, each entry expires with its token
+    private final Cache<String, JwtClaims> verifiedTokens;
+
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.cache.max-size:10000}") long cacheMaxSize) {
+        this.signInKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String email) {
@@ -23,55 +59,57 @@ public class JwtService {
                 .setSubject(email)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + 1000 * 60 * 60)) // 1 hour
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-  
+    /**
+     * Parse and verify the token once and return its claims
+     * - Served from the verified-token cache when the same token was seen before
+     * - Throws JwtException if the token is malformed, tampered with or expired
+     */
+    public JwtClaims verifyToken(String token) {
+        String key = hash(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
 
-      public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        Claims body = parser.parseClaimsJws(token).getBody();
+        JwtClaims claims = new JwtClaims(
+                body.getSubject(),
+                body.getIssuedAt() != null ? body.getIssuedAt().toInstant() : null,
+                body.getExpiration() != null ? body.getExpiration().toInstant() : null
+        );
+        if (claims.expiresAt() != null) {
+            verifiedTokens.put(key, claims);
+        }
+        return claims;
     }
 
-
-     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public String extractEmail(String token) {
+        return verifyToken(token).email();
     }
 
-        private Date extractExpiration(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        JwtClaims claims = verifyToken(token);
+        return isTokenValid(claims, userDetails);
     }
 
-    
-  
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(JwtClaims claims, UserDetails userDetails) {
+        return claims.email() != null && claims.email().equals(userDetails.getUsername()) && !claims.isExpired();
     }
 
+    private static long untilExpiry(JwtClaims claims) {
+        return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+    }
 
-    private Key getSignInKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-    // public boolean isTokenValid(String token){
-    //     try{
-    //         Jwts.parserBuilder().setSigningKey(getSignInKey()).build().parseClaimsJws(token);
-    //         return true;
-    //     }catch (ExpiredJwtException e){
-    //         throw new RuntimeException("JWT Token has expired");
-    //     } catch (MalformedJwtException | UnsupportedJwtException | IllegalArgumentException e) {
-    //         throw new RuntimeException("Invalid JWT Token");
-    //     }
-    // }
 }
@@ -3,15 +3,16 @@ package com.shopapplication.service;
 import com.shopapplication.dto.NotificationResponse;
 import com.shopapplication.models.Admin;
 import com.shopapplication.models.Notification;
+import com.shopapplication.models.OutboxEvent;
+import com.shopapplication.models.OutboxEventType;
 import com.shopapplication.models.User;
-import com.shopapplication.repository.AdminRepository;
 import com.shopapplication.repository.NotificationRepository;
+import com.shopapplication.repository.OutboxEventRepository;
 import com.shopapplication.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,7 +24,11 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final AdminRepository adminRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final NotificationStreamRegistry notificationStreamRegistry;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final CurrentUserProvider currentUserProvider;
 
     /**
      * Create notification for a specific user
@@ -39,7 +44,11 @@ public class NotificationService {
                 .build();
         
         Notification saved = notificationRepository.save(notification);
-        return convertToResponse(saved);
+        dashboardAggregateStore.onNotificationsCreated(1, saved.getCreatedAt());
+        unreadNotificationCounter.adjustUser(user.getId(), 1);
+        NotificationResponse response = convertToResponse(saved);
+        notificationStreamRegistry.publishToUser(user.getId(), response);
+        return response;
     }
 
     /**
@@ -55,47 +64,26 @@ public class NotificationService {
 
     /**
      * Notify all admins about new order
+     * - Writes a single outbox event in the caller's transaction; OutboxDispatcher creates the admin notifications
      */
     @Transactional
     public void notifyAdminsAboutNewOrder(Long orderId, String userEmail, Double totalAmount) {
-        List<Admin> admins = adminRepository.findAll();
-        
         String title = "New Order Received";
         String message = String.format("New order #%d from %s. Total: $%.2f", 
                 orderId, userEmail, totalAmount);
         
-        for (Admin admin : admins) {
-            Notification notification = Notification.builder()
-                    .admin(admin)
-                    .title(title)
-                    .message(message)
-                    .isRead(false)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            notificationRepository.save(notification);
-        }
+        publishAdminEvent(OutboxEventType.ADMIN_NEW_ORDER, title, message);
     }
 
     /**
-     * Notify all admins about new review
+     * Notify all admins about new review (through the outbox, see notifyAdminsAboutNewOrder)
      */
     @Transactional
     public void notifyAdminsAboutNewReview(Long reviewId, String userName, String productName, Integer rating) {
-        List<Admin> admins = adminRepository.findAll();
-        
         String title = "New Product Review";
         String message = String.format("%s left a %d-star review on %s", userName, rating, productName);
         
-        for (Admin admin : admins) {
-            Notification notification = Notification.builder()
-                    .admin(admin)
-                    .title(title)
-                    .message(message)
-                    .isRead(false)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            notificationRepository.save(notification);
-        }
+        publishAdminEvent(OutboxEventType.ADMIN_NEW_REVIEW, title, message);
     }
 
     /**
@@ -111,6 +99,20 @@ public class NotificationService {
         createNotification(user, title, message);
     }
 
+    /**
+     * Open a live notification stream (Server-Sent Events) for current user
+     */
+    public SseEmitter streamUserNotifications() {
+        return notificationStreamRegistry.subscribeUser(getCurrentUser().getId());
+    }
+
+    /**
+     * Open a live notification stream (Server-Sent Events) for current admin
+     */
+    public SseEmitter streamAdminNotifications() {
+        return notificationStreamRegistry.subscribeAdmin(getCurrentAdmin().getId());
+    }
+
     /**
      * Get all notifications for current user
      */
@@ -148,23 +150,21 @@ public class NotificationService {
             throw new RuntimeException("You don't have permission to access this notification");
         }
         
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            notification.setIsRead(true);
+            notificationRepository.save(notification);
+            unreadNotificationCounter.adjustUser(user.getId(), -1);
+        }
     }
 
     /**
-     * Mark all notifications as read for current user
+     * Mark all notifications as read for current user (single bulk update, nothing is loaded)
      */
     @Transactional
     public void markAllAsRead() {
         User user = getCurrentUser();
-        List<Notification> unreadNotifications = notificationRepository.findByUserAndIsReadOrderByCreatedAtDesc(user, false);
-        
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-        }
-        
-        notificationRepository.saveAll(unreadNotifications);
+        int updated = notificationRepository.markAllAsReadByUserId(user.getId());
+        unreadNotificationCounter.adjustUser(user.getId(), -updated);
     }
 
     /**
@@ -183,14 +183,16 @@ public class NotificationService {
         }
         
         notificationRepository.delete(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadNotificationCounter.adjustUser(user.getId(), -1);
+        }
     }
 
     /**
-     * Get notification count for current user
+     * Get unread notification count for current user (served from memory)
      */
     public long getUnreadCount() {
-        User user = getCurrentUser();
-        return notificationRepository.countByUserAndIsRead(user, false);
+        return unreadNotificationCounter.getForUser(getCurrentUser().getId());
     }
 
     /**
@@ -218,24 +220,47 @@ public class NotificationService {
             throw new RuntimeException("You don't have permission to access this notification");
         }
         
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            notification.setIsRead(true);
+            notificationRepository.save(notification);
+            unreadNotificationCounter.adjustAdmin(admin.getId(), -1);
+        }
+    }
+
+    /**
+     * Mark all notifications as read for current admin (single bulk update)
+     */
+    @Transactional
+    public void markAllAdminNotificationsAsRead() {
+        Admin admin = getCurrentAdmin();
+        int updated = notificationRepository.markAllAsReadByAdminId(admin.getId());
+        unreadNotificationCounter.adjustAdmin(admin.getId(), -updated);
+    }
+
+    /**
+     * Get unread notification count for current admin (served from memory)
+     */
+    public long getAdminUnreadCount() {
+        return unreadNotificationCounter.getForAdmin(getCurrentAdmin().getId());
     }
 
     // Helper methods
 
+    private void publishAdminEvent(OutboxEventType type, String title, String message) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .title(title)
+                .message(message)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
     }
 
     private Admin getCurrentAdmin() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return adminRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Admin not found"));
+        return currentUserProvider.getCurrentAdmin();
     }
 
     private NotificationResponse convertToResponse(Notification notification) {
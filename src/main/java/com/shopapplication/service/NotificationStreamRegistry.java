@@ -0,0 +1,108 @@
+package com.shopapplication.service;
+
+import com.shopapplication.dto.NotificationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open Server-Sent Events streams, per user and per admin
+ * - Streams are async servlet requests: an idle connection holds no request thread
+ * - Notifications are pushed once the transaction that created them commits
+ * - A periodic heartbeat comment keeps proxies from closing idle streams and detects dead clients
+ */
+@Component
+public class NotificationStreamRegistry {
+
+    private static final String EVENT_NAME = "notification";
+
+    private final long streamTimeoutMs;
+
+    private final Map<Long, Set<SseEmitter>> userStreams = new ConcurrentHashMap<>();
+    private final Map<Long, Set<SseEmitter>> adminStreams = new ConcurrentHashMap<>();
+
+    public NotificationStreamRegistry(@Value("${notifications.stream.timeout-ms:1800000}") long streamTimeoutMs) {
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    public SseEmitter subscribeUser(Long userId) {
+        return subscribe(userStreams, userId);
+    }
+
+    public SseEmitter subscribeAdmin(Long adminId) {
+        return subscribe(adminStreams, adminId);
+    }
+
+    public void publishToUser(Long userId, NotificationResponse notification) {
+        TransactionCallbacks.afterCommit(() -> send(userStreams.get(userId), notification));
+    }
+
+    public void publishToAdmin(Long adminId, NotificationResponse notification) {
+        TransactionCallbacks.afterCommit(() -> send(adminStreams.get(adminId), notification));
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        heartbeat(userStreams.values());
+        heartbeat(adminStreams.values());
+    }
+
+    // Internal helpers
+
+    private SseEmitter subscribe(Map<Long, Set<SseEmitter>> streams, Long ownerId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Runnable unsubscribe = () -> streams.computeIfPresent(ownerId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        streams.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        try {
+            // Sends the response headers right away so the client sees the stream as open
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private void send(Set<SseEmitter> emitters, NotificationResponse notification) {
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                SseEmitter.SseEventBuilder event = SseEmitter.event().name(EVENT_NAME).data(notification);
+                if (notification.getId() != null) {
+                    event.id(notification.getId().toString());
+                }
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void heartbeat(Collection<Set<SseEmitter>> streams) {
+        for (Set<SseEmitter> emitters : streams) {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+}
@@ -2,19 +2,27 @@ package com.shopapplication.service;
 
 import com.shopapplication.dto.CreateOrderRequest;
 import com.shopapplication.dto.OrderItemResponse;
+import com.shopapplication.dto.OrderItemView;
 import com.shopapplication.dto.OrderResponse;
+import com.shopapplication.dto.OrderSummaryView;
+import com.shopapplication.dto.PageResponse;
 import com.shopapplication.dto.UpdateOrderStatusRequest;
 import com.shopapplication.models.*;
 import com.shopapplication.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,25 +30,36 @@ import java.util.stream.Collectors;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
     private final AdminRepository adminRepository;
     private final NotificationService notificationService;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final InventoryReservationService inventoryReservationService;
+    private final CartStore cartStore;
+    private final PurchasedProductService purchasedProductService;
+    private final CurrentUserProvider currentUserProvider;
+
+    @Value("${orders.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${orders.page.max-size:100}")
+    private int maxPageSize;
 
     /**
      * Create order from cart or direct items
      * - If items provided in request, use them directly (for external API products)
      * - Otherwise, use cart items (for database products)
      * - Validates items are not empty
-     * - Checks stock availability for database products only
+     * - Reserves stock for database products only (all lines or none, see InventoryReservationService)
      * - Creates order and order items
-     * - Reduces product stock for database products
      * - Clears cart if used
      * - Notifies admins about new order
      */
     @Transactional
+    @Timed(value = "shop.checkout", extraTags = {"step", "create_order"}, histogram = true)
     public OrderResponse createOrder(CreateOrderRequest request) {
         User user = getCurrentUser();
         
@@ -52,23 +71,20 @@ public class OrderService {
         List<OrderItem> orderItems = new ArrayList<>();
         double totalAmount = 0.0;
         boolean useCart = false;
+        List<CartItem> checkedOutItems = List.of();
         
         // Check if items are provided directly in the request
         if (request.getItems() != null && !request.getItems().isEmpty()) {
             // Create order from provided items (supports external API products)
+            // All referenced products are loaded with one query
+            Map<Long, Product> products = productRepository.findAllById(request.getItems().stream()
+                            .map(CreateOrderRequest.OrderItemDto::getProductId)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, product -> product));
             for (CreateOrderRequest.OrderItemDto itemDto : request.getItems()) {
-                Product product = productRepository.findById(itemDto.getProductId())
-                        .orElse(null);
-                
-                // For database products, validate stock
-                if (product != null) {
-                    if (product.getStock() < itemDto.getQuantity()) {
-                        throw new RuntimeException(String.format(
-                            "Insufficient stock for product '%s'. Available: %d, Requested: %d",
-                            product.getName(), product.getStock(), itemDto.getQuantity()
-                        ));
-                    }
-                }
+                Product product = products.get(itemDto.getProductId());
                 
                 // Use provided price (important for external API products)
                 double unitPrice = itemDto.getPrice() != null ? itemDto.getPrice() : 
@@ -87,27 +103,18 @@ public class OrderService {
                 orderItems.add(orderItem);
             }
         } else {
-            // Use cart items (original behavior)
+            // Use cart items (original behavior); pending cart changes are written first
             useCart = true;
+            cartStore.flush(user.getId());
             Cart cart = cartRepository.findByUser(user)
                     .orElseThrow(() -> new RuntimeException("Cart not found"));
             
-            List<CartItem> cartItems = cartItemRepository.findByCart(cart);
+            List<CartItem> cartItems = cartItemRepository.findWithProductByCartId(cart.getId());
             
             if (cartItems.isEmpty()) {
                 throw new RuntimeException("Cart is empty. Add items before creating an order");
             }
-            
-            // Validate stock availability for all items
-            for (CartItem cartItem : cartItems) {
-                Product product = cartItem.getProduct();
-                if (product.getStock() < cartItem.getQuantity()) {
-                    throw new RuntimeException(String.format(
-                        "Insufficient stock for product '%s'. Available: %d, Requested: %d",
-                        product.getName(), product.getStock(), cartItem.getQuantity()
-                    ));
-                }
-            }
+            checkedOutItems = cartItems;
             
             // Calculate total amount and create order items
             for (CartItem cartItem : cartItems) {
@@ -130,7 +137,11 @@ public class OrderService {
             throw new RuntimeException("No items to order");
         }
         
-        // Create order
+        // Fail fast on stock held in memory; the products table is only written at the end
+        // (released again if the transaction rolls back)
+        InventoryReservationService.Reservation reservation = inventoryReservationService.reserve(orderItems);
+        
+        // Create order; the items are persisted with it (cascade) and written in one JDBC batch on flush
         Order order = Order.builder()
                 .user(user)
                 .totalAmount(totalAmount)
@@ -140,30 +151,25 @@ public class OrderService {
                 .updatedAt(LocalDateTime.now())
                 .build();
         
-        Order savedOrder = orderRepository.save(order);
-        
-        // Set order reference and reduce stock for database products
+        // Set order reference
         for (OrderItem orderItem : orderItems) {
-            orderItem.setOrder(savedOrder);
-            
-            // Reduce stock only for database products
-            if (orderItem.getProduct() != null) {
-                Product product = orderItem.getProduct();
-                product.setStock(product.getStock() - orderItem.getQuantity());
-                productRepository.save(product);
-            }
+            orderItem.setOrder(order);
         }
+        order.setOrderItems(orderItems);
         
-        savedOrder.setOrderItems(orderItems);
-        orderRepository.save(savedOrder);
+        // Checked before the insert; two simultaneous first orders of one user may both count (fixed on restart)
+        boolean firstOrder = !orderRepository.existsByUserId(user.getId());
+        Order savedOrder = orderRepository.save(order);
+        dashboardAggregateStore.onOrderCreated(savedOrder, firstOrder);
         
         // Clear cart if it was used
         if (useCart) {
-            Cart cart = cartRepository.findByUser(user).orElse(null);
-            if (cart != null) {
-                List<CartItem> cartItems = cartItemRepository.findByCart(cart);
-                cartItemRepository.deleteAll(cartItems);
-            }
+            // Only the rows that were ordered: a line the cart store flushed since they were read stays
+            cartItemRepository.deleteAllInBatch(checkedOutItems);
+            dashboardAggregateStore.onCartItemsChanged(-checkedOutItems.size());
+            // The in-memory cart still holds the ordered items
+            cartStore.evict(user.getId(), checkedOutItems.stream()
+                    .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity)));
         }
         
         // Notify user
@@ -177,18 +183,19 @@ public class OrderService {
         // Notify admins about new order
         notificationService.notifyAdminsAboutNewOrder(savedOrder.getId(), user.getEmail(), totalAmount);
         
+        // Everything else goes out first, so the product rows are locked only for the commit itself
+        orderRepository.flush();
+        inventoryReservationService.write(reservation);
+        
         return convertToOrderResponse(savedOrder);
     }
 
     /**
-     * Get all orders for current user
+     * Get orders for current user, newest first (paginated)
      */
-    public List<OrderResponse> getUserOrders() {
+    public PageResponse<OrderResponse> getUserOrders(int page, int size) {
         User user = getCurrentUser();
-        List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
-        return orders.stream()
-                .map(this::convertToOrderResponse)
-                .collect(Collectors.toList());
+        return toPageResponse(orderRepository.findSummariesByUserId(user.getId(), pageRequest(page, size)));
     }
 
     /**
@@ -197,15 +204,15 @@ public class OrderService {
     public OrderResponse getOrderById(Long orderId) {
         User user = getCurrentUser();
         
-        Order order = orderRepository.findById(orderId)
+        OrderSummaryView order = orderRepository.findSummaryById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
         
         // Ensure order belongs to current user
-        if (!order.getUser().getId().equals(user.getId())) {
+        if (!order.userId().equals(user.getId())) {
             throw new RuntimeException("You don't have permission to access this order");
         }
         
-        return convertToOrderResponse(order);
+        return toOrderResponses(List.of(order)).get(0);
     }
 
     /**
@@ -231,15 +238,14 @@ public class OrderService {
         }
         
         // Restore product stock
-        for (OrderItem orderItem : order.getOrderItems()) {
-            Product product = orderItem.getProduct();
-            product.setStock(product.getStock() + orderItem.getQuantity());
-            productRepository.save(product);
-        }
+        inventoryReservationService.release(order.getOrderItems());
         
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         order.setUpdatedAt(LocalDateTime.now());
         Order updatedOrder = orderRepository.save(order);
+        dashboardAggregateStore.onOrderStatusChanged(updatedOrder, previousStatus, OrderStatus.CANCELLED);
+        purchasedProductService.onOrderStatusChanged(updatedOrder, previousStatus, OrderStatus.CANCELLED);
         
         // Notify user
         notificationService.createNotification(
@@ -252,13 +258,10 @@ public class OrderService {
     }
 
     /**
-     * Get all orders (Admin only)
+     * Get all orders, newest first (Admin only, paginated)
      */
-    public List<OrderResponse> getAllOrders() {
-        List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
-        return orders.stream()
-                .map(this::convertToOrderResponse)
-                .collect(Collectors.toList());
+    public PageResponse<OrderResponse> getAllOrders(int page, int size) {
+        return toPageResponse(orderRepository.findAllSummaries(pageRequest(page, size)));
     }
 
     /**
@@ -279,9 +282,12 @@ public class OrderService {
         }
         
         // Update order status
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(newStatus);
         order.setUpdatedAt(LocalDateTime.now());
         Order updatedOrder = orderRepository.save(order);
+        dashboardAggregateStore.onOrderStatusChanged(updatedOrder, previousStatus, newStatus);
+        purchasedProductService.onOrderStatusChanged(updatedOrder, previousStatus, newStatus);
         
         // Notify user about status change
         notificationService.notifyUserAboutOrderStatus(
@@ -295,9 +301,9 @@ public class OrderService {
     }
 
     /**
-     * Get orders by status (Admin only)
+     * Get orders by status, newest first (Admin only, paginated)
      */
-    public List<OrderResponse> getOrdersByStatus(String status) {
+    public PageResponse<OrderResponse> getOrdersByStatus(String status, int page, int size) {
         OrderStatus orderStatus;
         try {
             orderStatus = OrderStatus.valueOf(status.toUpperCase());
@@ -305,19 +311,68 @@ public class OrderService {
             throw new RuntimeException("Invalid order status: " + status);
         }
         
-        List<Order> orders = orderRepository.findByStatusOrderByCreatedAtDesc(orderStatus);
-        return orders.stream()
-                .map(this::convertToOrderResponse)
-                .collect(Collectors.toList());
+        return toPageResponse(orderRepository.findSummariesByStatus(orderStatus, pageRequest(page, size)));
     }
 
     // Helper methods
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
+    }
+
+    private PageRequest pageRequest(int page, int size) {
+        if (page < 0) {
+            throw new RuntimeException("Page must be 0 or greater");
+        }
+        int pageSize = size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        return PageRequest.of(page, pageSize);
+    }
+
+    private PageResponse<OrderResponse> toPageResponse(Page<OrderSummaryView> orders) {
+        return PageResponse.<OrderResponse>builder()
+                .items(toOrderResponses(orders.getContent()))
+                .page(orders.getNumber())
+                .size(orders.getSize())
+                .totalElements(orders.getTotalElements())
+                .totalPages(orders.getTotalPages())
+                .build();
+    }
+
+    /**
+     * Attach items to order projections with a single query for the whole page
+     */
+    private List<OrderResponse> toOrderResponses(List<OrderSummaryView> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, List<OrderItemResponse>> itemsByOrder = new HashMap<>();
+        List<Long> orderIds = orders.stream().map(OrderSummaryView::id).collect(Collectors.toList());
+        for (OrderItemView item : orderItemRepository.findViewsByOrderIdIn(orderIds)) {
+            itemsByOrder.computeIfAbsent(item.orderId(), id -> new ArrayList<>()).add(OrderItemResponse.builder()
+                    .id(item.id())
+                    .productId(item.productId())
+                    .productName(item.productId() != null ? item.productName() : "External Product")
+                    .productImage(item.productImage())
+                    .quantity(item.quantity())
+                    .unitPrice(item.unitPrice())
+                    .subtotal(item.subtotal())
+                    .build());
+        }
+        
+        return orders.stream()
+                .map(order -> OrderResponse.builder()
+                        .id(order.id())
+                        .userId(order.userId())
+                        .userEmail(order.userEmail())
+                        .items(itemsByOrder.getOrDefault(order.id(), List.of()))
+                        .totalAmount(order.totalAmount())
+                        .status(order.status().name())
+                        .shippingAddress(order.shippingAddress())
+                        .createdAt(order.createdAt())
+                        .updatedAt(order.updatedAt())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     private OrderResponse convertToOrderResponse(Order order) {
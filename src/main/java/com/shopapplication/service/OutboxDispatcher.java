@@ -0,0 +1,105 @@
+package com.shopapplication.service;
+
+import com.shopapplication.dto.NotificationResponse;
+import com.shopapplication.models.OutboxEvent;
+import com.shopapplication.repository.AdminRepository;
+import com.shopapplication.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background fan-out of outbox events into admin notifications
+ * - Each run takes the oldest events (FOR UPDATE SKIP LOCKED, so several instances can run side by side),
+ *   inserts one notification per admin per event in a single JDBC batch and deletes the events
+ * - Insert and delete share one transaction: an event is either fully delivered or retried on the next run
+ * - Admins with an open notification stream get the new notifications pushed once the batch commits
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+
+    private static final String INSERT_ADMIN_NOTIFICATION_SQL =
+            "INSERT INTO notifications (id, admin_id, title, message, is_read, created_at) VALUES (?, ?, ?, ?, false, ?)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AdminRepository adminRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final NotificationStreamRegistry notificationStreamRegistry;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final SequenceIdAllocator sequenceIdAllocator;
+
+    @Value("${outbox.dispatch.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch.interval-ms:500}")
+    public void dispatch() {
+        Integer dispatched;
+        do {
+            dispatched = transactionTemplate.execute(status -> dispatchBatch());
+        } while (dispatched != null && dispatched == batchSize);
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> adminIds = adminRepository.findAllIds();
+        List<AdminNotification> rows = new ArrayList<>(events.size() * adminIds.size());
+        for (OutboxEvent event : events) {
+            for (Long adminId : adminIds) {
+                rows.add(new AdminNotification(adminId, event));
+            }
+            dashboardAggregateStore.onNotificationsCreated(adminIds.size(), event.getCreatedAt());
+        }
+        if (!rows.isEmpty()) {
+            insertNotifications(rows);
+            for (Long adminId : adminIds) {
+                unreadNotificationCounter.adjustAdmin(adminId, events.size());
+            }
+        }
+
+        outboxEventRepository.deleteAllInBatch(events);
+        return events.size();
+    }
+
+    /**
+     * One JDBC batch for all rows; ids come from the notifications sequence and are pushed to open streams
+     */
+    private void insertNotifications(List<AdminNotification> rows) {
+        List<Long> ids = sequenceIdAllocator.allocate(SequenceIdAllocator.NOTIFICATIONS_SEQUENCE, rows.size());
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            AdminNotification row = rows.get(i);
+            batch.add(new Object[]{ids.get(i), row.adminId(), row.event().getTitle(), row.event().getMessage(),
+                    Timestamp.valueOf(row.event().getCreatedAt())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ADMIN_NOTIFICATION_SQL, batch);
+
+        for (int i = 0; i < rows.size(); i++) {
+            AdminNotification row = rows.get(i);
+            Long id = ids.get(i);
+            notificationStreamRegistry.publishToAdmin(row.adminId(), NotificationResponse.builder()
+                    .id(id)
+                    .title(row.event().getTitle())
+                    .message(row.event().getMessage())
+                    .isRead(false)
+                    .createdAt(row.event().getCreatedAt())
+                    .build());
+        }
+    }
+
+    private record AdminNotification(Long adminId, OutboxEvent event) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.shopapplication.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated external payment gateway
+ * - Non-blocking, like an async HTTP client: a call returns at once and its future completes when the
+ *   gateway answers, so no thread is held for the gateway latency
+ * - Only ever called from the payment executor, never from a request thread or inside a transaction
+ * - Charges are idempotent per key, like a real gateway: charging a key again returns the first outcome
+ *   instead of charging twice, and the outcome of a key can be looked up
+ */
+@Component
+public class PaymentGateway {
+
+    // Completes simulated responses after the latency; the completion work is tiny, so it runs on the timer thread
+    private final Executor responses;
+
+    // idempotency key -> outcome of its charge (held on the gateway side)
+    private final Cache<String, Boolean> outcomes;
+
+    public PaymentGateway(@Value("${payment.gateway.latency-ms:1000}") long latencyMs,
+                          @Value("${payment.gateway.idempotency-retention-hours:24}") long retentionHours) {
+        this.responses = CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS, Runnable::run);
+        this.outcomes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(retentionHours))
+                .build();
+    }
+
+    /**
+     * Charge the given amount once per idempotency key
+     * Completes with true for success (90% probability), false for failure (10% probability)
+     */
+    public CompletableFuture<Boolean> charge(String idempotencyKey, Double amount, String paymentMethod) {
+        return CompletableFuture.supplyAsync(() -> {
+            // 90% success rate
+            boolean outcome = ThreadLocalRandom.current().nextInt(100) < 90;
+            Boolean recorded = outcomes.asMap().putIfAbsent(idempotencyKey, outcome);
+            return recorded != null ? recorded : outcome;
+        }, responses);
+    }
+
+    /**
+     * Outcome of an earlier charge, empty if the gateway never completed one for the key
+     */
+    public CompletableFuture<Optional<Boolean>> lookup(String idempotencyKey) {
+        return CompletableFuture.supplyAsync(() -> Optional.ofNullable(outcomes.getIfPresent(idempotencyKey)), responses);
+    }
+}
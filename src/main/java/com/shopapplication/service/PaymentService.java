@@ -1,20 +1,31 @@
 package com.shopapplication.service;
 
+import com.shopapplication.dto.PageResponse;
 import com.shopapplication.dto.PaymentRequest;
 import com.shopapplication.dto.PaymentResponse;
 import com.shopapplication.models.*;
 import com.shopapplication.repository.OrderRepository;
 import com.shopapplication.repository.PaymentRepository;
-import com.shopapplication.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,19 +34,31 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
-    private final UserRepository userRepository;
     private final NotificationService notificationService;
-    private final Random random = new Random();
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final PurchasedProductService purchasedProductService;
+    private final PaymentGateway paymentGateway;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("paymentExecutor")
+    private final TaskExecutor paymentExecutor;
+    private final CurrentUserProvider currentUserProvider;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payments.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${payments.page.max-size:100}")
+    private int maxPageSize;
 
     /**
      * Process payment with idempotency support
      * - Checks if payment already exists with the same idempotency key
      * - Validates order belongs to current user
-     * - Simulates payment processing (90% success rate)
-     * - Updates order status based on payment result
-     * - Sends notifications
+     * - Persists a PENDING payment and hands it to the payment executor once committed
+     * - Returns immediately; the result is polled via getPaymentById / getPaymentByOrderId
      */
     @Transactional
+    @Timed(value = "shop.checkout", extraTags = {"step", "process_payment"}, histogram = true)
     public PaymentResponse processPayment(PaymentRequest request) {
         User user = getCurrentUser();
 
@@ -74,6 +97,11 @@ public class PaymentService {
             throw new RuntimeException("Cannot pay for a cancelled order");
         }
 
+        // Check if a payment for this order is still in flight
+        if (order.getStatus() == OrderStatus.PENDING_PAYMENT) {
+            throw new RuntimeException("Payment for this order is already being processed");
+        }
+
         // Validate payment method
         if (request.getPaymentMethod() == null || request.getPaymentMethod().trim().isEmpty()) {
             throw new RuntimeException("Payment method is required");
@@ -90,58 +118,183 @@ public class PaymentService {
                 .build();
 
         Payment savedPayment = paymentRepository.save(payment);
+        dashboardAggregateStore.onPaymentCreated(PaymentStatus.PENDING);
+
+        // Mark order as awaiting the gateway
+        OrderStatus previousStatus = order.getStatus();
+        order.setStatus(OrderStatus.PENDING_PAYMENT);
+        order.setUpdatedAt(LocalDateTime.now());
+        orderRepository.save(order);
+        dashboardAggregateStore.onOrderStatusChanged(order, previousStatus, OrderStatus.PENDING_PAYMENT);
+
+        // Only hand the payment to the gateway once the PENDING row is committed
+        Long paymentId = savedPayment.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submitToGateway(paymentId);
+            }
+        });
+
+        return convertToPaymentResponse(savedPayment);
+    }
+
+    /**
+     * Re-submit payments left PENDING by a previous shutdown or crash
+     * - Payments already sent to the gateway are reconciled with it (see executePayment), never charged blindly
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingPayments() {
+        paymentRepository.findIdsByStatus(PaymentStatus.PENDING)
+                .forEach(this::submitToGateway);
+    }
+
+    /**
+     * Queue the gateway call on the payment executor
+     * If the executor is saturated the payment is failed straight away so the client can retry
+     */
+    private void submitToGateway(Long paymentId) {
+        try {
+            paymentExecutor.execute(() -> executePayment(paymentId));
+        } catch (TaskRejectedException e) {
+            transactionTemplate.executeWithoutResult(status -> completePayment(paymentId, false));
+        }
+    }
+
+    /**
+     * Runs on the payment executor: marks the payment as sent and starts the gateway call outside any
+     * transaction; the status transition runs in its own short transaction once the gateway answers
+     * - The payment is marked as sent (chargeStartedAt) before the gateway is called, and the payment's
+     *   idempotency key goes with the charge
+     * - A payment that was already sent (resumed after a crash) is looked up at the gateway first; it is only
+     *   charged again, with the same key, if the gateway has no outcome for it
+     * - A failed lookup or gateway call fails the payment instead of leaving it PENDING
+     */
+    private void executePayment(Long paymentId) {
+        CompletableFuture<Boolean> charge;
+        try {
+            Payment payment = paymentRepository.findById(paymentId).orElse(null);
+            if (payment == null || payment.getStatus() != PaymentStatus.PENDING) {
+                return;
+            }
+
+            String idempotencyKey = payment.getIdempotencyKey();
+            if (payment.getChargeStartedAt() != null) {
+                charge = paymentGateway.lookup(idempotencyKey).thenCompose(outcome -> outcome
+                        .map(CompletableFuture::completedFuture)
+                        .orElseGet(() -> paymentGateway.charge(idempotencyKey, payment.getAmount(), payment.getPaymentMethod())));
+            } else if (markChargeStarted(paymentId)) {
+                charge = paymentGateway.charge(idempotencyKey, payment.getAmount(), payment.getPaymentMethod());
+            } else {
+                // Already sent by another worker
+                return;
+            }
+        } catch (RuntimeException e) {
+            charge = CompletableFuture.completedFuture(false);
+        }
+
+        charge.whenComplete((paymentSuccessful, error) ->
+                submitCompletion(paymentId, error == null && Boolean.TRUE.equals(paymentSuccessful)));
+    }
+
+    /**
+     * Apply the gateway answer on the payment executor (on the calling thread if the executor is saturated,
+     * so an answered payment is never left PENDING)
+     */
+    private void submitCompletion(Long paymentId, boolean paymentSuccessful) {
+        Runnable completion = () -> transactionTemplate.executeWithoutResult(status -> completePayment(paymentId, paymentSuccessful));
+        try {
+            paymentExecutor.execute(completion);
+        } catch (TaskRejectedException e) {
+            completion.run();
+        }
+    }
+
+    private boolean markChargeStarted(Long paymentId) {
+        Integer marked = transactionTemplate.execute(status ->
+                paymentRepository.markChargeStarted(paymentId, LocalDateTime.now()));
+        return marked != null && marked > 0;
+    }
+
+    /**
+     * Apply the gateway result to the payment and its order
+     * Must run inside a transaction; a payment that is no longer PENDING is left untouched
+     */
+    private void completePayment(Long paymentId, boolean paymentSuccessful) {
+        Payment payment = paymentRepository.findById(paymentId).orElse(null);
+        if (payment == null || payment.getStatus() != PaymentStatus.PENDING) {
+            return;
+        }
 
-        // Simulate payment processing (90% success rate)
-        boolean paymentSuccessful = simulatePaymentProcessing();
+        Order order = payment.getOrder();
+        User user = order.getUser();
+
+        // Order was cancelled while the gateway call was in flight
+        if (paymentSuccessful && order.getStatus() == OrderStatus.CANCELLED) {
+            paymentSuccessful = false;
+        }
 
         if (paymentSuccessful) {
             // Update payment status to SUCCEEDED
-            savedPayment.setStatus(PaymentStatus.SUCCEEDED);
-            paymentRepository.save(savedPayment);
+            payment.setStatus(PaymentStatus.SUCCEEDED);
+            paymentRepository.save(payment);
+            dashboardAggregateStore.onPaymentStatusChanged(PaymentStatus.PENDING, PaymentStatus.SUCCEEDED);
+            countPayment(PaymentStatus.SUCCEEDED);
 
             // Update order status to PAID
+            OrderStatus previousStatus = order.getStatus();
             order.setStatus(OrderStatus.PAID);
             order.setUpdatedAt(LocalDateTime.now());
             orderRepository.save(order);
+            dashboardAggregateStore.onOrderStatusChanged(order, previousStatus, OrderStatus.PAID);
+            purchasedProductService.onOrderStatusChanged(order, previousStatus, OrderStatus.PAID);
 
             // Notify user about successful payment
             notificationService.createNotification(
                 user,
                 "Payment Successful",
                 String.format("Payment of $%.2f for order #%d was successful. Your order will be shipped soon.",
-                    savedPayment.getAmount(), order.getId())
+                    payment.getAmount(), order.getId())
             );
         } else {
             // Update payment status to FAILED
-            savedPayment.setStatus(PaymentStatus.FAILED);
-            paymentRepository.save(savedPayment);
+            payment.setStatus(PaymentStatus.FAILED);
+            paymentRepository.save(payment);
+            dashboardAggregateStore.onPaymentStatusChanged(PaymentStatus.PENDING, PaymentStatus.FAILED);
+            countPayment(PaymentStatus.FAILED);
+
+            // Release the order so it can be paid again
+            if (order.getStatus() == OrderStatus.PENDING_PAYMENT) {
+                order.setStatus(OrderStatus.CREATED);
+                order.setUpdatedAt(LocalDateTime.now());
+                orderRepository.save(order);
+                dashboardAggregateStore.onOrderStatusChanged(order, OrderStatus.PENDING_PAYMENT, OrderStatus.CREATED);
+            }
 
             // Notify user about failed payment
             notificationService.createNotification(
                 user,
                 "Payment Failed",
                 String.format("Payment of $%.2f for order #%d failed. Please try again.",
-                    savedPayment.getAmount(), order.getId())
+                    payment.getAmount(), order.getId())
             );
         }
-
-        return convertToPaymentResponse(savedPayment);
     }
 
     /**
-     * Simulate payment processing
-     * Returns true for success (90% probability), false for failure (10% probability)
+     * Get payment by ID (used to poll the result of processPayment)
      */
-    private boolean simulatePaymentProcessing() {
-        // Simulate processing delay
-        try {
-            Thread.sleep(1000); // 1 second delay
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    public PaymentResponse getPaymentById(Long paymentId) {
+        User user = getCurrentUser();
+
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found with id: " + paymentId));
+
+        if (!payment.getOrder().getUser().getId().equals(user.getId())) {
+            throw new RuntimeException("You don't have permission to access this payment");
         }
 
-        // 90% success rate
-        return random.nextInt(100) < 90;
+        return convertToPaymentResponse(payment);
     }
 
     /**
@@ -165,26 +318,23 @@ public class PaymentService {
     }
 
     /**
-     * Get payment history for current user
+     * Get payment history for current user, newest first (one page)
      */
-    public List<PaymentResponse> getPaymentHistory() {
+    public PageResponse<PaymentResponse> getPaymentHistory(int page, int size) {
         User user = getCurrentUser();
-
-        // Get all orders for user
-        List<Order> userOrders = orderRepository.findByUserOrderByCreatedAtDesc(user);
-        List<Long> orderIds = userOrders.stream()
-                .map(Order::getId)
-                .collect(Collectors.toList());
-
-        // Get all payments for user's orders
-        List<Payment> payments = paymentRepository.findAll().stream()
-                .filter(payment -> orderIds.contains(payment.getOrder().getId()))
-                .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
-                .collect(Collectors.toList());
-
-        return payments.stream()
-                .map(this::convertToPaymentResponse)
-                .collect(Collectors.toList());
+        if (page < 0) {
+            throw new RuntimeException("Page must be 0 or greater");
+        }
+        int pageSize = size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        Page<PaymentResponse> payments = paymentRepository.findHistoryByUserId(user.getId(), PageRequest.of(page, pageSize));
+        return PageResponse.<PaymentResponse>builder()
+                .items(payments.getContent())
+                .page(payments.getNumber())
+                .size(payments.getSize())
+                .totalElements(payments.getTotalElements())
+                .totalPages(payments.getTotalPages())
+                .build();
     }
 
     /**
@@ -201,11 +351,13 @@ public class PaymentService {
 
     // Helper methods
 
+    // Payment method is free text from the client, so it is not used as a tag
+    private void countPayment(PaymentStatus outcome) {
+        meterRegistry.counter("shop.payments", "outcome", outcome.name().toLowerCase()).increment();
+    }
+
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
     }
 
     private PaymentResponse convertToPaymentResponse(Payment payment) {
@@ -0,0 +1,207 @@
+package com.shopapplication.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopapplication.dto.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the public catalog
+ * - Products: ProductResponse by id
+ * - Listing pages: the product ids (and next cursor) of one page, keyed by category, sort, cursor and size;
+ *   the products themselves are always taken from the product cache
+ * - Stock and rating changes therefore only drop the product entry; listing pages are dropped when products
+ *   are added, removed or edited (for the global listing and the categories involved), and rating-sorted
+ *   pages when a rating changes
+ * - Invalidation happens once the surrounding transaction commits; the TTL bounds any remaining staleness
+ * - Loaded values are only stored if no invalidation happened since the load started (generation stamp),
+ *   so a read that raced a write can never put the old row back after the write's eviction
+ * - Every invalidation also bumps the CatalogVersion validators
+ * - Hit/miss/eviction metrics: cache_* meters tagged cache=catalog.products and cache=catalog.pages
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final Cache<Long, ProductResponse> products;
+    private final Cache<PageKey, CatalogPage> pages;
+    private final CatalogVersion catalogVersion;
+    // Bumped before every invalidation; loads started under an older generation are not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(MeterRegistry meterRegistry,
+                               CatalogVersion catalogVersion,
+                               @Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds,
+                               @Value("${catalog.cache.max-products:10000}") long maxProducts,
+                               @Value("${catalog.cache.max-pages:2000}") long maxPages) {
+        this.catalogVersion = catalogVersion;
+        this.products = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxProducts)
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxPages)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalog.pages");
+    }
+
+    /**
+     * One product, loaded on a miss (the loader may throw, e.g. for an unknown id; nothing is cached then)
+     */
+    public ProductResponse getProduct(Long id, Function<Long, ProductResponse> loader) {
+        return products.get(id, loader);
+    }
+
+    /**
+     * Products in the order of ids; misses are loaded together, ids that no longer exist are skipped
+     */
+    public List<ProductResponse> getProducts(List<Long> ids,
+                                             Function<Set<Long>, Map<Long, ProductResponse>> loader) {
+        Map<Long, ProductResponse> found = new HashMap<>(products.getAllPresent(ids));
+        Set<Long> missing = new HashSet<>(ids);
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            long stamp = generation.get();
+            Map<Long, ProductResponse> loaded = loader.apply(missing);
+            found.putAll(loaded);
+            store(products, loaded, stamp);
+        }
+        List<ProductResponse> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductResponse product = found.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generation to pass to putProducts; take it before reading the rows
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public void putProducts(List<ProductResponse> loaded, long stamp) {
+        Map<Long, ProductResponse> byId = new HashMap<>();
+        loaded.forEach(product -> byId.put(product.getId(), product));
+        store(products, byId, stamp);
+    }
+
+    public CatalogPage getPage(PageKey key, Supplier<CatalogPage> loader) {
+        CatalogPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = generation.get();
+        CatalogPage page = loader.get();
+        store(pages, Map.of(key, page), stamp);
+        return page;
+    }
+
+    /**
+     * Drop one product (stock, rating or details changed)
+     */
+    public void evictProduct(Long productId) {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            products.invalidate(productId);
+            catalogVersion.productChanged(productId);
+        });
+    }
+
+    /**
+     * Drop a product and every listing page it may appear on or move between
+     * - categories: the product's category before and after the change (nulls are ignored)
+     */
+    public void evictProductAndListings(Long productId, String... categories) {
+        Set<String> affected = new HashSet<>();
+        for (String category : categories) {
+            if (category != null) {
+                affected.add(category);
+            }
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            products.invalidate(productId);
+            pages.asMap().keySet().removeIf(key -> key.category() == null || affected.contains(key.category()));
+            catalogVersion.productChanged(productId);
+        });
+    }
+
+    /**
+     * Drop many products and every listing page (bulk import)
+     */
+    public void evictProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            products.invalidateAll(productIds);
+            pages.invalidateAll();
+            productIds.forEach(catalogVersion::productChanged);
+        });
+    }
+
+    /**
+     * Drop a product and the rating-sorted listing pages (a review changed its average)
+     */
+    public void evictRating(Long productId) {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            products.invalidate(productId);
+            pages.asMap().keySet().removeIf(key -> key.sort() == ProductSort.RATING);
+            catalogVersion.productChanged(productId);
+        });
+    }
+
+    // Internal helpers
+
+    /**
+     * Store loaded values unless an invalidation happened since the stamp was taken
+     * - The check runs inside compute, i.e. under the entry's lock, and invalidations bump the generation
+     *   before removing entries: either the put sees the new generation, or the removal comes after the put
+     */
+    private <K, V> void store(Cache<K, V> cache, Map<K, V> loaded, long stamp) {
+        for (Map.Entry<K, V> entry : loaded.entrySet()) {
+            cache.asMap().compute(entry.getKey(), (key, current) ->
+                    generation.get() == stamp ? entry.getValue() : current);
+        }
+    }
+
+    /**
+     * Identifies one listing page (category is null for the whole catalog)
+     */
+    public record PageKey(String category, ProductSort sort, String cursor, int size) {
+    }
+
+    /**
+     * Product ids of one listing page and the cursor of the next
+     */
+    public record CatalogPage(List<Long> productIds, String nextCursor, boolean hasMore) {
+
+        public CatalogPage {
+            productIds = List.copyOf(productIds);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.shopapplication.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque continuation token for keyset-paginated product listings
+ * Encodes the sort order and the sort key of the last row returned: "sort|value|id", base64url
+ */
+final class ProductCursor {
+
+    private ProductCursor() {
+    }
+
+    static String encode(ProductSort sort, ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            return null;
+        }
+        Map<String, ?> keys = keyset.getKeys();
+        String raw = sort.name() + "|" + keys.get(sort.getProperty()) + "|" + keys.get("id");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ScrollPosition decode(ProductSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException();
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sort.getProperty(), parseValue(sort, parts[1]));
+            keys.put("id", Long.valueOf(parts[2]));
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private static Object parseValue(ProductSort sort, String value) {
+        return switch (sort) {
+            case NEWEST -> LocalDateTime.parse(value);
+            case PRICE_ASC, PRICE_DESC -> Double.valueOf(value);
+            case RATING -> Float.valueOf(value);
+        };
+    }
+}
@@ -0,0 +1,438 @@
+package com.shopapplication.service;
+
+import com.shopapplication.dto.PriceRangeCount;
+import com.shopapplication.dto.ProductFacets;
+import com.shopapplication.models.Product;
+import com.shopapplication.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-process facet index over the catalog for combined filtering with live facet counts
+ * - Every product has a slot; category and in-stock membership are bitsets over the slots
+ * - Slots are also kept sorted by price, rating and age: price ranges and minimum ratings become
+ *   a binary search plus a bit range, and results come out already sorted
+ * - Each facet counts the products matching every other filter (picking a category keeps the
+ *   other categories' counts visible)
+ * - Built at startup and kept current by ProductService create/update/delete; stock and rating
+ *   changes are applied as deltas once their transaction commits
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final int BOOTSTRAP_PAGE_SIZE = 1000;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int[] RATING_THRESHOLDS = {4, 3, 2, 1};
+
+    private final ProductRepository productRepository;
+    private final double[] priceBoundaries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // productId -> slot; freed slots are reused
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int slotCount;
+
+    // Per-slot values
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] stocks = new int[INITIAL_CAPACITY];
+    private long[] ratingCounts = new long[INITIAL_CAPACITY];
+    private long[] ratingSums = new long[INITIAL_CAPACITY];
+    private float[] ratings = new float[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private String[] categories = new String[INITIAL_CAPACITY];
+
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+
+    // Live slots in price (ascending), rating (descending) and age (newest first) order
+    private int[] priceOrder = new int[0];
+    private int[] ratingOrder = new int[0];
+    private int[] newestOrder = new int[0];
+    private boolean ordersStale;
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             @Value("${catalog.facets.price-ranges:0,50,100,500,1000,5000}") double[] priceBoundaries) {
+        this.productRepository = productRepository;
+        this.priceBoundaries = priceBoundaries.clone();
+        Arrays.sort(this.priceBoundaries);
+    }
+
+    /**
+     * Filter values; null (or empty) means no filter on that facet
+     * - categories match any of the given categories
+     */
+    public record Filter(Set<String> categories, Double minPrice, Double maxPrice, Boolean inStock, Float minRating) {
+    }
+
+    /**
+     * One page of matching product ids (in the requested order), the total match count and the facet counts
+     */
+    public record Result(List<Long> productIds, long totalElements, ProductFacets facets) {
+    }
+
+    /**
+     * Build the index from the products table once the application (and the data seeder) is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            freeSlots.clear();
+            slotCount = 0;
+            live.clear();
+            inStock.clear();
+            byCategory.clear();
+            Arrays.fill(categories, null);
+
+            productRepository.forEachInIdOrder(BOOTSTRAP_PAGE_SIZE, this::put);
+            ordersStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            put(product);
+            ordersStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(productId);
+            if (slot == null) {
+                return;
+            }
+            clearCategory(slot);
+            live.clear(slot);
+            inStock.clear(slot);
+            freeSlots.push(slot);
+            ordersStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a stock change (negative when reserved) once the surrounding transaction commits
+     */
+    public void adjustStock(Long productId, int delta) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slots.get(productId);
+                if (slot != null) {
+                    stocks[slot] += delta;
+                    inStock.set(slot, stocks[slot] > 0);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Apply a review change (same deltas as ProductRepository.applyRatingDelta) once the transaction commits
+     */
+    public void adjustRating(Long productId, int countDelta, long sumDelta) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slots.get(productId);
+                if (slot != null) {
+                    ratingCounts[slot] += countDelta;
+                    ratingSums[slot] += sumDelta;
+                    ratings[slot] = average(ratingCounts[slot], ratingSums[slot]);
+                    ordersStale = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Matching product ids for one page (offset/limit) and the facet counts, all from memory
+     */
+    public Result query(Filter filter, ProductSort sort, int offset, int limit) {
+        acquireReadLockWithCurrentOrders();
+        try {
+            BitSet categoryMatch = categoryMask(filter.categories());
+            BitSet priceMatch = priceMask(filter.minPrice(), filter.maxPrice());
+            BitSet ratingMatch = ratingMask(filter.minRating());
+            BitSet stockMatch = Boolean.TRUE.equals(filter.inStock()) ? inStock : live;
+
+            // Everything but the category filter, then the full match
+            BitSet withoutCategory = intersect(priceMatch, ratingMatch, stockMatch);
+            BitSet match = intersect(withoutCategory, categoryMatch);
+
+            ProductFacets facets = ProductFacets.builder()
+                    .categories(countCategories(withoutCategory))
+                    .priceRanges(countPrices(intersect(categoryMatch, ratingMatch, stockMatch)))
+                    .ratings(countRatings(intersect(categoryMatch, priceMatch, stockMatch)))
+                    .inStock(intersect(categoryMatch, priceMatch, ratingMatch, inStock).cardinality())
+                    .build();
+
+            return new Result(page(match, sort, offset, limit), match.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Internal helpers (callers hold the lock)
+
+    private void put(Product product) {
+        Integer slot = slots.get(product.getId());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            ensureCapacity(slot + 1);
+            slots.put(product.getId(), slot);
+        } else {
+            clearCategory(slot);
+        }
+
+        ids[slot] = product.getId();
+        prices[slot] = product.getPrice() != null ? product.getPrice() : 0;
+        stocks[slot] = product.getStock() != null ? product.getStock() : 0;
+        ratingCounts[slot] = product.getRatingCount() != null ? product.getRatingCount() : 0;
+        ratingSums[slot] = product.getRatingSum() != null ? product.getRatingSum() : 0;
+        ratings[slot] = average(ratingCounts[slot], ratingSums[slot]);
+        createdAt[slot] = product.getCreatedAt() != null
+                ? product.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+        categories[slot] = product.getCategory();
+
+        live.set(slot);
+        inStock.set(slot, stocks[slot] > 0);
+        if (product.getCategory() != null) {
+            byCategory.computeIfAbsent(product.getCategory(), k -> new BitSet()).set(slot);
+        }
+    }
+
+    private void clearCategory(int slot) {
+        String category = categories[slot];
+        if (category == null) {
+            return;
+        }
+        BitSet members = byCategory.get(category);
+        if (members != null) {
+            members.clear(slot);
+            if (members.isEmpty()) {
+                byCategory.remove(category);
+            }
+        }
+        categories[slot] = null;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(size, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        ratingCounts = Arrays.copyOf(ratingCounts, capacity);
+        ratingSums = Arrays.copyOf(ratingSums, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+    }
+
+    // Returns holding the read lock, with the sorted orders matching the current slots
+    private void acquireReadLockWithCurrentOrders() {
+        while (true) {
+            lock.readLock().lock();
+            if (!ordersStale) {
+                return;
+            }
+            lock.readLock().unlock();
+
+            lock.writeLock().lock();
+            try {
+                if (ordersStale) {
+                    sortSlots();
+                    ordersStale = false;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void sortSlots() {
+        Integer[] liveSlots = live.stream().boxed().toArray(Integer[]::new);
+
+        Arrays.sort(liveSlots, Comparator.<Integer>comparingDouble(s -> prices[s]).thenComparingLong(s -> ids[s]));
+        priceOrder = toArray(liveSlots);
+
+        Arrays.sort(liveSlots, Comparator.<Integer>comparingDouble(s -> -ratings[s]).thenComparingLong(s -> -ids[s]));
+        ratingOrder = toArray(liveSlots);
+
+        Arrays.sort(liveSlots, Comparator.<Integer>comparingLong(s -> -createdAt[s]).thenComparingLong(s -> -ids[s]));
+        newestOrder = toArray(liveSlots);
+    }
+
+    private BitSet categoryMask(Set<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return live;
+        }
+        BitSet mask = new BitSet();
+        for (String category : wanted) {
+            BitSet members = byCategory.get(category);
+            if (members != null) {
+                mask.or(members);
+            }
+        }
+        return mask;
+    }
+
+    private BitSet priceMask(Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return live;
+        }
+        // priceOrder is ascending: [from, to) is the matching run
+        int from = minPrice == null ? 0 : firstIndex(priceOrder, s -> prices[s] >= minPrice);
+        int to = maxPrice == null ? priceOrder.length : firstIndex(priceOrder, s -> prices[s] > maxPrice);
+        return slotsOf(priceOrder, from, to);
+    }
+
+    private BitSet ratingMask(Float minRating) {
+        if (minRating == null) {
+            return live;
+        }
+        // ratingOrder is descending: [0, to) is the matching run
+        return slotsOf(ratingOrder, 0, firstIndex(ratingOrder, s -> ratings[s] < minRating));
+    }
+
+    private Map<String, Long> countCategories(BitSet candidates) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : byCategory.entrySet()) {
+            BitSet members = (BitSet) entry.getValue().clone();
+            members.and(candidates);
+            if (!members.isEmpty()) {
+                counts.put(entry.getKey(), (long) members.cardinality());
+            }
+        }
+        return counts;
+    }
+
+    private List<PriceRangeCount> countPrices(BitSet candidates) {
+        long[] counts = new long[priceBoundaries.length + 1];
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            int bucket = Arrays.binarySearch(priceBoundaries, prices[slot]);
+            // Boundaries are inclusive lower bounds
+            counts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+        }
+        List<PriceRangeCount> ranges = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                ranges.add(new PriceRangeCount(
+                        i == 0 ? null : priceBoundaries[i - 1],
+                        i == priceBoundaries.length ? null : priceBoundaries[i],
+                        counts[i]));
+            }
+        }
+        return ranges;
+    }
+
+    // "n stars & up" counts
+    private Map<Integer, Long> countRatings(BitSet candidates) {
+        long[] counts = new long[RATING_THRESHOLDS.length];
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+                if (ratings[slot] >= RATING_THRESHOLDS[i]) {
+                    counts[i]++;
+                }
+            }
+        }
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+            result.put(RATING_THRESHOLDS[i], counts[i]);
+        }
+        return result;
+    }
+
+    // Walk the sort order, keeping matches from offset until the page is full
+    private List<Long> page(BitSet match, ProductSort sort, int offset, int limit) {
+        int[] order = switch (sort) {
+            case NEWEST -> newestOrder;
+            case PRICE_ASC, PRICE_DESC -> priceOrder;
+            case RATING -> ratingOrder;
+        };
+        boolean reversed = sort == ProductSort.PRICE_DESC;
+
+        List<Long> page = new ArrayList<>(Math.min(limit, match.cardinality()));
+        int skipped = 0;
+        for (int i = 0; i < order.length && page.size() < limit; i++) {
+            int slot = order[reversed ? order.length - 1 - i : i];
+            if (match.get(slot) && skipped++ >= offset) {
+                page.add(ids[slot]);
+            }
+        }
+        return page;
+    }
+
+    private static BitSet intersect(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.and(other);
+        }
+        return result;
+    }
+
+    private static BitSet slotsOf(int[] order, int from, int to) {
+        BitSet mask = new BitSet();
+        for (int i = from; i < to; i++) {
+            mask.set(order[i]);
+        }
+        return mask;
+    }
+
+    // First index whose slot satisfies the predicate; the predicate must be monotonic along the order
+    private static int firstIndex(int[] order, IntPredicate predicate) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (predicate.test(order[mid])) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int[] toArray(Integer[] slots) {
+        int[] result = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            result[i] = slots[i];
+        }
+        return result;
+    }
+
+    private static float average(long count, long sum) {
+        return count > 0 ? (float) (sum * 1.0 / count) : 0.0f;
+    }
+}
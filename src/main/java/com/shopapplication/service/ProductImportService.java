@@ -0,0 +1,522 @@
+package com.shopapplication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopapplication.dto.ImportRowError;
+import com.shopapplication.dto.ProductImportReport;
+import com.shopapplication.dto.ProductRequest;
+import com.shopapplication.models.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk product import from a streamed CSV or NDJSON body
+ * - Rows are parsed one at a time and validated with the same rules as ProductService.createProduct
+ * - Rows with an id replace that product's fields, rows without one create a product
+ * - Valid rows are written in JDBC batches, one transaction per batch; if a batch fails it is retried row by
+ *   row, so only the rows the database refuses are rejected
+ * - Memory stays bounded: one batch of rows, a capped line/field length and the first rejected rows only
+ * - Caches, indexes, dashboard counters and active carts are updated batch by batch
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, description, price, stock, image_url, category, rating, rating_count, " +
+            "rating_sum, one_star_count, two_star_count, three_star_count, four_star_count, five_star_count, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE products SET name = ?, description = ?, price = ?, stock = ?, image_url = ?, category = ?, " +
+            "updated_at = ? WHERE id = ?";
+    private static final String LOCK_EXISTING_SQL =
+            "SELECT id, stock, rating_count, rating_sum, created_at FROM products WHERE id IN (%s) FOR UPDATE";
+
+    private static final List<String> CSV_COLUMNS =
+            List.of("id", "name", "description", "price", "stock", "imageurl", "category");
+
+    // Longest CSV field / NDJSON line accepted, so a broken file cannot exhaust memory
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    private final ProductService productService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final InventoryReservationService inventoryReservationService;
+    private final CartStore cartStore;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductCatalogCache productCatalogCache;
+
+    @Value("${products.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${products.import.max-errors:1000}")
+    private int maxErrors;
+
+    /**
+     * CSV with a header row; columns (any order, case-insensitive): id, name, description, price, stock,
+     * imageUrl (or image_url), category. Fields may be double-quoted; empty fields are null.
+     */
+    public ProductImportReport importCsv(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Import state = new Import();
+        try {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new RuntimeException("CSV header row is required");
+            }
+            List<String> columns = new ArrayList<>(header.size());
+            for (String name : header) {
+                String column = name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+                if (!CSV_COLUMNS.contains(column)) {
+                    throw new RuntimeException("Unknown CSV column: " + name);
+                }
+                columns.add(column);
+            }
+
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                state.rowsRead++;
+                if (fields.size() != columns.size()) {
+                    state.reject(csv.recordLine, "Expected " + columns.size() + " fields but found " + fields.size());
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    String value = fields.get(i).trim();
+                    values.put(columns.get(i), value.isEmpty() ? null : value);
+                }
+                try {
+                    ProductRequest request = new ProductRequest(values.get("name"), values.get("description"),
+                            parseDouble(values.get("price"), "price"), parseInteger(values.get("stock"), "stock"),
+                            values.get("imageurl"), values.get("category"));
+                    state.accept(csv.recordLine, parseId(values.get("id")), request);
+                } catch (RuntimeException e) {
+                    state.reject(csv.recordLine, e.getMessage());
+                }
+            }
+        } catch (UnreadableInputException e) {
+            state.rowsRead++;
+            state.reject(e.line, e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return state.finish();
+    }
+
+    /**
+     * One JSON object per line with the ProductRequest fields and an optional id; blank lines are skipped
+     */
+    public ProductImportReport importNdjson(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Import state = new Import();
+        long lineNumber = 0;
+        try {
+            StringBuilder line = new StringBuilder();
+            while (readLine(reader, line, ++lineNumber)) {
+                if (line.toString().isBlank()) {
+                    continue;
+                }
+                state.rowsRead++;
+                try {
+                    JsonNode node = objectMapper.readTree(line.toString());
+                    if (!node.isObject()) {
+                        throw new RuntimeException("Expected a JSON object");
+                    }
+                    ProductRequest request = objectMapper.treeToValue(node, ProductRequest.class);
+                    JsonNode id = node.get("id");
+                    state.accept(lineNumber, id == null || id.isNull() ? null : parseId(id.asText()), request);
+                } catch (JsonProcessingException e) {
+                    state.reject(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                } catch (RuntimeException e) {
+                    state.reject(lineNumber, e.getMessage());
+                }
+            }
+        } catch (UnreadableInputException e) {
+            state.rowsRead++;
+            state.reject(e.line, e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return state.finish();
+    }
+
+    // Internal helpers
+
+    /**
+     * Progress of one import: counters, the first errors and the rows waiting for the next batch
+     */
+    private class Import {
+        private final List<Row> pending = new ArrayList<>();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        void accept(long line, Long id, ProductRequest request) {
+            productService.validateProductRequest(request);
+            pending.add(new Row(line, id, request));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowError(line, error));
+            }
+        }
+
+        ProductImportReport finish() {
+            flush();
+            return ProductImportReport.builder()
+                    .rowsRead(rowsRead)
+                    .inserted(inserted)
+                    .updated(updated)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                apply(transactionTemplate.execute(status -> writeBatch(pending)));
+            } catch (RuntimeException e) {
+                if (pending.size() == 1) {
+                    reject(pending.get(0).line(), "Batch rejected: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                } else {
+                    // Find the offending rows: retry the batch row by row so the valid ones still go in
+                    for (Row row : pending) {
+                        try {
+                            apply(transactionTemplate.execute(status -> writeBatch(List.of(row))));
+                        } catch (RuntimeException rowFailure) {
+                            reject(row.line(), "Row rejected: " + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                        }
+                    }
+                }
+            }
+            pending.clear();
+        }
+
+        private void apply(BatchResult result) {
+            inserted += result.inserted().size();
+            updated += result.updated().size();
+            result.notFound().forEach(row -> reject(row.line(), "Product not found with id: " + row.id()));
+            afterBatch(result);
+        }
+    }
+
+    /**
+     * Write one batch: updates for rows with an existing id, inserts (with generated ids) for the rest
+     */
+    private BatchResult writeBatch(List<Row> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Row> inserts = new ArrayList<>();
+        List<Row> updates = new ArrayList<>();
+        List<Row> notFound = new ArrayList<>();
+
+        Map<Long, Product> existing = lockExisting(rows);
+        for (Row row : rows) {
+            if (row.id() == null) {
+                inserts.add(row);
+            } else if (existing.containsKey(row.id())) {
+                updates.add(row);
+            } else {
+                notFound.add(row);
+            }
+        }
+
+        List<Product> updated = new ArrayList<>(updates.size());
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, row) -> {
+                setFields(ps, row.request());
+                ps.setTimestamp(7, Timestamp.valueOf(now));
+                ps.setLong(8, row.id());
+            });
+            for (Row row : updates) {
+                Product current = existing.get(row.id());
+                Product product = toProduct(row.id(), row.request(), current, now);
+                dashboardAggregateStore.onProductStockChanged(current.getStock(), product.getStock());
+                inventoryReservationService.evict(row.id());
+                // A product listed twice in one batch: the next row starts from this one
+                existing.put(row.id(), product);
+                updated.add(product);
+            }
+        }
+
+        List<Product> inserted = new ArrayList<>(inserts.size());
+        if (!inserts.isEmpty()) {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setFields(ps, inserts.get(i).request());
+                            ps.setTimestamp(7, Timestamp.valueOf(now));
+                            ps.setTimestamp(8, Timestamp.valueOf(now));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return inserts.size();
+                        }
+                    }, keys);
+            List<Map<String, Object>> generated = keys.getKeyList();
+            for (int i = 0; i < inserts.size(); i++) {
+                Long id = ((Number) generated.get(i).get("id")).longValue();
+                Product product = toProduct(id, inserts.get(i).request(), null, now);
+                dashboardAggregateStore.onProductCreated(product.getStock());
+                inserted.add(product);
+            }
+        }
+
+        List<Long> changedIds = new ArrayList<>(updated.size() + inserted.size());
+        updated.forEach(product -> changedIds.add(product.getId()));
+        inserted.forEach(product -> changedIds.add(product.getId()));
+        productCatalogCache.evictProducts(changedIds);
+        return new BatchResult(inserted, updated, notFound);
+    }
+
+    // Runs after the batch committed
+    private void afterBatch(BatchResult result) {
+        for (Product product : result.updated()) {
+            productSearchIndex.index(product);
+            productFacetIndex.index(product);
+        }
+        for (Product product : result.inserted()) {
+            productSearchIndex.index(product);
+            productFacetIndex.index(product);
+        }
+        cartStore.refreshProducts(result.updated());
+    }
+
+    // Existing rows of the batch's ids, locked until the batch commits; only what the indexes need
+    private Map<Long, Product> lockExisting(List<Row> rows) {
+        Set<Long> ids = new LinkedHashSet<>();
+        rows.forEach(row -> {
+            if (row.id() != null) {
+                ids.add(row.id());
+            }
+        });
+        Map<Long, Product> existing = new HashMap<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query(String.format(LOCK_EXISTING_SQL, placeholders), rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            Product product = Product.builder()
+                    .id(rs.getLong("id"))
+                    .stock(rs.getObject("stock", Integer.class))
+                    .ratingCount(rs.getInt("rating_count"))
+                    .ratingSum(rs.getLong("rating_sum"))
+                    .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                    .build();
+            existing.put(product.getId(), product);
+        }, ids.toArray());
+        return existing;
+    }
+
+    private static void setFields(PreparedStatement ps, ProductRequest request) throws SQLException {
+        ps.setString(1, request.getName());
+        ps.setString(2, request.getDescription());
+        ps.setDouble(3, request.getPrice());
+        ps.setInt(4, request.getStock());
+        ps.setString(5, request.getImageUrl());
+        ps.setString(6, request.getCategory());
+    }
+
+    private static Product toProduct(Long id, ProductRequest request, Product current, LocalDateTime now) {
+        Product product = Product.builder()
+                .id(id)
+                .name(request.getName())
+                .description(request.getDescription())
+                .price(request.getPrice())
+                .stock(request.getStock())
+                .imageUrl(request.getImageUrl())
+                .category(request.getCategory())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        if (current != null) {
+            product.setRatingCount(current.getRatingCount());
+            product.setRatingSum(current.getRatingSum());
+            product.setCreatedAt(current.getCreatedAt());
+        }
+        return product;
+    }
+
+    private static Long parseId(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(value.trim());
+            if (id <= 0) {
+                throw new NumberFormatException();
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid id: " + value);
+        }
+    }
+
+    private static Double parseDouble(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Integer parseInteger(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid " + field + ": " + value);
+        }
+    }
+
+    /**
+     * Read one line (without the line break) into line; false at end of input
+     */
+    private static boolean readLine(BufferedReader reader, StringBuilder line, long lineNumber) throws IOException {
+        line.setLength(0);
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                if (line.length() >= MAX_LINE_LENGTH) {
+                    throw new UnreadableInputException(lineNumber, "Line exceeds " + MAX_LINE_LENGTH + " characters");
+                }
+                line.append((char) c);
+            }
+            c = reader.read();
+        }
+        return true;
+    }
+
+    /**
+     * Minimal RFC 4180 reader: comma separated, double-quoted fields may hold commas, quotes ("") and line breaks
+     */
+    private static class CsvReader {
+        private final BufferedReader reader;
+        private long line = 1;
+        private long recordLine;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        // Fields of the next record, or null at end of input
+        List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            recordLine = line;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                if (field.length() >= MAX_FIELD_LENGTH) {
+                    throw new UnreadableInputException(recordLine, "Field exceeds " + MAX_FIELD_LENGTH + " characters");
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (quoted) {
+                throw new UnreadableInputException(recordLine, "Unterminated quoted field");
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * Input that cannot be read any further; rows before it are kept
+     */
+    private static class UnreadableInputException extends IOException {
+        private final long line;
+
+        UnreadableInputException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+    }
+
+    private record Row(long line, Long id, ProductRequest request) {
+    }
+
+    private record BatchResult(List<Product> inserted, List<Product> updated, List<Row> notFound) {
+    }
+}
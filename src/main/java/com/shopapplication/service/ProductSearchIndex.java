@@ -0,0 +1,233 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.Product;
+import com.shopapplication.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product name, description and category
+ * - Tokens are lower-cased letter/digit runs; every query token must match (exactly or as a prefix)
+ * - Ranking is BM25 over a weighted bag of words (name counts more than category, category more than description)
+ * - Built at startup and kept current by ProductService create/update/delete
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Prefix matches score lower than exact matches, and are capped per query token
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int BOOTSTRAP_PAGE_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // productId -> (term -> weighted term frequency), needed to remove a document
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private final Map<Long, Float> documentLengths = new HashMap<>();
+    private double totalLength;
+
+    /**
+     * Build the index from the products table once the application (and the data seeder) is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+
+            productRepository.forEachInIdOrder(BOOTSTRAP_PAGE_SIZE, this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Product ids matching every token of the query, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = totalLength / documentCount;
+
+            Map<Long, Double> scores = null;
+            for (String token : new LinkedHashSet<>(queryTokens)) {
+                Map<Long, Double> tokenScores = scoreToken(token, documentCount, averageLength);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Every query token must match
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return topIds(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Internal helpers (callers hold the lock)
+
+    private Map<Long, Double> scoreToken(String token, int documentCount, double averageLength) {
+        Map<Long, Double> tokenScores = new HashMap<>();
+
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(tokenScores, exact, 1.0, documentCount, averageLength);
+        }
+
+        int expansions = 0;
+        for (Map.Entry<String, Map<Long, Float>> entry
+                : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            accumulate(tokenScores, entry.getValue(), PREFIX_MATCH_FACTOR, documentCount, averageLength);
+        }
+        return tokenScores;
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Float> termPostings, double factor,
+                            int documentCount, double averageLength) {
+        int documentFrequency = termPostings.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+            double tf = posting.getValue();
+            double length = documentLengths.get(posting.getKey());
+            double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+            scores.merge(posting.getKey(), factor * score, Double::sum);
+        }
+    }
+
+    private List<Long> topIds(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limit + 1, byScore);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, product.getName(), NAME_WEIGHT);
+        addField(terms, product.getCategory(), CATEGORY_WEIGHT);
+        addField(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        float length = 0;
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(product.getId(), term.getValue());
+            length += term.getValue();
+        }
+        documents.put(product.getId(), terms);
+        documentLengths.put(product.getId(), length);
+        totalLength += length;
+    }
+
+    private void removeDocument(Long productId) {
+        Map<String, Float> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= documentLengths.remove(productId);
+    }
+
+    private void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
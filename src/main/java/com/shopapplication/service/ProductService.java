@@ -1,14 +1,22 @@
 package com.shopapplication.service;
 
+import com.shopapplication.dto.CursorPageResponse;
+import com.shopapplication.dto.ProductFilterResponse;
 import com.shopapplication.dto.ProductRequest;
 import com.shopapplication.dto.ProductResponse;
 import com.shopapplication.models.Product;
 import com.shopapplication.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,29 +24,84 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final InventoryReservationService inventoryReservationService;
+    private final CartStore cartStore;
+    private final ProductCatalogCache productCatalogCache;
 
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Value("${search.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${catalog.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Keyset-paginated catalog listing
+     * - Stable sort on (createdAt, id) or (price, id); the cursor carries the last row's sort key
+     * - Every page is a single index range scan, however deep
+     */
+    public CursorPageResponse<ProductResponse> getProducts(String sort, String cursor, Integer size) {
+        return getProductPage(null, sort, cursor, size);
     }
 
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return convertToResponse(product);
+        return productCatalogCache.getProduct(id, key -> convertToResponse(productRepository.findById(key)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + key))));
+    }
+
+    public CursorPageResponse<ProductResponse> getProductsByCategory(String category, String sort, String cursor, Integer size) {
+        if (category == null || category.trim().isEmpty()) {
+            throw new RuntimeException("Category is required");
+        }
+        return getProductPage(category, sort, cursor, size);
     }
 
-    public List<ProductResponse> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Full-text search over name, description and category, best match first
+     * Matching and ranking run against the in-memory index; only the hits are loaded
+     */
+    public List<ProductResponse> searchProducts(String keyword, int limit) {
+        List<Long> ids = productSearchIndex.search(keyword, Math.min(limit, maxSearchResults));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return loadProducts(ids);
     }
 
-    public List<ProductResponse> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Combined catalog filter (categories, price range, in stock, minimum rating) with facet counts
+     * - Matching, sorting and counting run against the in-memory facet index; only the page is loaded
+     * - Offset pagination: page is zero-based
+     */
+    public ProductFilterResponse filterProducts(Set<String> categories, Double minPrice, Double maxPrice,
+                                                Boolean inStock, Float minRating, String sortParam,
+                                                int page, Integer size) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new RuntimeException("minPrice cannot be greater than maxPrice");
+        }
+        if (minRating != null && (minRating < 0 || minRating > 5)) {
+            throw new RuntimeException("minRating must be between 0 and 5");
+        }
+        ProductSort sort = ProductSort.fromParam(sortParam);
+        int pageNumber = Math.max(page, 0);
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+
+        ProductFacetIndex.Result result = productFacetIndex.query(
+                new ProductFacetIndex.Filter(categories, minPrice, maxPrice, inStock, minRating), sort, offset, pageSize);
+        return ProductFilterResponse.builder()
+                .items(loadProducts(result.productIds()))
+                .page(pageNumber)
+                .size(pageSize)
+                .totalElements(result.totalElements())
+                .totalPages((int) ((result.totalElements() + pageSize - 1) / pageSize))
+                .facets(result.facets())
+                .build();
     }
 
     public ProductResponse createProduct(ProductRequest request) {
@@ -51,18 +114,32 @@ public class ProductService {
                 .stock(request.getStock())
                 .imageUrl(request.getImageUrl())
                 .category(request.getCategory())
-                .rating(0.0f)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
         
         Product savedProduct = productRepository.save(product);
+        productCatalogCache.evictProductAndListings(savedProduct.getId(), savedProduct.getCategory());
+        dashboardAggregateStore.onProductCreated(savedProduct.getStock());
+        productSearchIndex.index(savedProduct);
+        productFacetIndex.index(savedProduct);
         return convertToResponse(savedProduct);
     }
 
+    /**
+     * Edit a product's details
+     * - Stock is written only when the request sets it, with its own UPDATE on the locked row; other edits
+     *   leave it alone, so orders reserved meanwhile are never overwritten by the stock read here
+     * - Active carts and the search and facet indexes pick up the edit once it commits
+     */
+    @Transactional
     public ProductResponse updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        // Re-read under the row lock: the loaded value may predate reservations
+        Integer previousStock = productRepository.lockStock(id);
+        product.setStock(previousStock);
+        String previousCategory = product.getCategory();
         
         if (request.getName() != null && !request.getName().trim().isEmpty()) {
             product.setName(request.getName());
@@ -73,9 +150,6 @@ public class ProductService {
         if (request.getPrice() != null) {
             product.setPrice(request.getPrice());
         }
-        if (request.getStock() != null) {
-            product.setStock(request.getStock());
-        }
         if (request.getImageUrl() != null) {
             product.setImageUrl(request.getImageUrl());
         }
@@ -85,20 +159,104 @@ public class ProductService {
         
         product.setUpdatedAt(LocalDateTime.now());
         Product updatedProduct = productRepository.save(product);
+        if (request.getStock() != null) {
+            productRepository.setStock(id, request.getStock());
+            updatedProduct.setStock(request.getStock());
+            dashboardAggregateStore.onProductStockChanged(previousStock, request.getStock());
+            inventoryReservationService.evict(id);
+        }
+        productCatalogCache.evictProductAndListings(id, previousCategory, updatedProduct.getCategory());
+        // Readers of the carts and indexes must not see the edit before it commits (or at all if it rolls back)
+        TransactionCallbacks.afterCommit(() -> {
+            cartStore.refreshProduct(updatedProduct);
+            productSearchIndex.index(updatedProduct);
+            productFacetIndex.index(updatedProduct);
+        });
         return convertToResponse(updatedProduct);
     }
 
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found with id: " + id);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        cartStore.removeProduct(id);
+        productRepository.delete(product);
+        productCatalogCache.evictProductAndListings(id, product.getCategory());
+        dashboardAggregateStore.onProductDeleted(product.getStock());
+        inventoryReservationService.evict(id);
+        productSearchIndex.remove(id);
+        productFacetIndex.remove(id);
+    }
+
+    /**
+     * One listing page: the page's product ids come from the catalog cache (or one keyset query),
+     * the products from the product cache (or one query for the misses)
+     */
+    private CursorPageResponse<ProductResponse> getProductPage(String category, String sortParam, String cursor, Integer size) {
+        ProductSort sort = ProductSort.fromParam(sortParam);
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        ProductCatalogCache.PageKey key = new ProductCatalogCache.PageKey(category, sort, cursor, pageSize);
+        ProductCatalogCache.CatalogPage page = productCatalogCache.getPage(key, () -> loadPage(key));
+
+        List<ProductResponse> items = loadProducts(page.productIds());
+        return CursorPageResponse.<ProductResponse>builder()
+                .items(items)
+                .nextCursor(page.nextCursor())
+                .hasMore(page.hasMore())
+                .size(items.size())
+                .build();
+    }
+
+    private ProductCatalogCache.CatalogPage loadPage(ProductCatalogCache.PageKey key) {
+        ProductSort sort = key.sort();
+        String category = key.category();
+        ScrollPosition position = ProductCursor.decode(sort, key.cursor());
+        Limit limit = Limit.of(key.size());
+
+        long stamp = productCatalogCache.currentGeneration();
+        Window<Product> window;
+        if (category == null) {
+            window = switch (sort) {
+                case NEWEST -> productRepository.findAllByOrderByCreatedAtDescIdDesc(position, limit);
+                case PRICE_ASC -> productRepository.findAllByOrderByPriceAscIdAsc(position, limit);
+                case PRICE_DESC -> productRepository.findAllByOrderByPriceDescIdDesc(position, limit);
+                case RATING -> productRepository.findAllByOrderByRatingDescIdDesc(position, limit);
+            };
+        } else {
+            window = switch (sort) {
+                case NEWEST -> productRepository.findByCategoryOrderByCreatedAtDescIdDesc(category, position, limit);
+                case PRICE_ASC -> productRepository.findByCategoryOrderByPriceAscIdAsc(category, position, limit);
+                case PRICE_DESC -> productRepository.findByCategoryOrderByPriceDescIdDesc(category, position, limit);
+                case RATING -> productRepository.findByCategoryOrderByRatingDescIdDesc(category, position, limit);
+            };
         }
-        productRepository.deleteById(id);
+
+        List<Product> products = window.getContent();
+        boolean hasMore = window.hasNext() && !products.isEmpty();
+        // The rows just read also warm the product cache
+        productCatalogCache.putProducts(products.stream().map(this::convertToResponse).collect(Collectors.toList()), stamp);
+
+        return new ProductCatalogCache.CatalogPage(
+                products.stream().map(Product::getId).collect(Collectors.toList()),
+                hasMore ? ProductCursor.encode(sort, window.positionAt(products.size() - 1)) : null,
+                hasMore);
     }
 
-    private void validateProductRequest(ProductRequest request) {
+    private List<ProductResponse> loadProducts(List<Long> ids) {
+        return productCatalogCache.getProducts(ids, missing -> productRepository.findAllById(missing).stream()
+                .collect(Collectors.toMap(Product::getId, this::convertToResponse)));
+    }
+
+    // Also applied to every row of a bulk import (ProductImportService)
+    void validateProductRequest(ProductRequest request) {
         if (request.getName() == null || request.getName().trim().isEmpty()) {
             throw new RuntimeException("Product name is required");
         }
+        if (request.getName().length() > Product.NAME_MAX_LENGTH) {
+            throw new RuntimeException("Product name cannot be longer than " + Product.NAME_MAX_LENGTH + " characters");
+        }
+        if (request.getCategory() != null && request.getCategory().length() > Product.CATEGORY_MAX_LENGTH) {
+            throw new RuntimeException("Product category cannot be longer than " + Product.CATEGORY_MAX_LENGTH + " characters");
+        }
         if (request.getPrice() == null || request.getPrice() <= 0) {
             throw new RuntimeException("Product price must be greater than 0");
         }
@@ -117,6 +275,7 @@ public class ProductService {
                 .imageUrl(product.getImageUrl())
                 .category(product.getCategory())
                 .rating(product.getRating())
+                .ratingCount(product.getRatingCount())
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
                 .build();
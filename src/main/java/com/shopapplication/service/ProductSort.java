@@ -0,0 +1,32 @@
+package com.shopapplication.service;
+
+/**
+ * Stable sort orders for product listings; each one ends with id as a tie-breaker
+ */
+public enum ProductSort {
+    NEWEST("createdAt"),
+    PRICE_ASC("price"),
+    PRICE_DESC("price"),
+    RATING("rating"); // Highest average first
+
+    private final String property;
+
+    ProductSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static ProductSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return ProductSort.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid sort: " + value);
+        }
+    }
+}
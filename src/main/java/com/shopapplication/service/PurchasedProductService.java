@@ -0,0 +1,85 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.Order;
+import com.shopapplication.models.OrderStatus;
+import com.shopapplication.models.PurchasedProductId;
+import com.shopapplication.repository.PurchasedProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Which products each user has bought, as (user_id, product_id) rows in purchased_products
+ * - A row exists while at least one of the user's PAID, SHIPPED or DELIVERED orders contains the product
+ * - Kept current on order status changes, inside the same transaction
+ * - Filled from existing orders at startup when the table is still empty
+ */
+@Service
+@RequiredArgsConstructor
+public class PurchasedProductService {
+
+    static final Set<OrderStatus> PURCHASED_STATUSES =
+            Collections.unmodifiableSet(EnumSet.of(OrderStatus.PAID, OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+
+    private static final String PURCHASED_STATUS_LIST = "('PAID', 'SHIPPED', 'DELIVERED')";
+
+    private static final String RECORD_ORDER_SQL =
+            "INSERT INTO purchased_products (user_id, product_id) " +
+            "SELECT DISTINCT o.user_id, oi.product_id FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.id = ? AND oi.product_id IS NOT NULL " +
+            "ON CONFLICT DO NOTHING";
+
+    // Keeps products the user also bought in another purchased order
+    private static final String REVOKE_ORDER_SQL =
+            "DELETE FROM purchased_products pp WHERE pp.user_id = ? " +
+            "AND pp.product_id IN (SELECT oi.product_id FROM order_items oi WHERE oi.order_id = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.user_id = pp.user_id AND oi.product_id = pp.product_id AND o.id <> ? " +
+            "AND o.status IN " + PURCHASED_STATUS_LIST + ")";
+
+    private static final String BACKFILL_SQL =
+            "INSERT INTO purchased_products (user_id, product_id) " +
+            "SELECT DISTINCT o.user_id, oi.product_id FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.user_id IS NOT NULL AND oi.product_id IS NOT NULL AND o.status IN " + PURCHASED_STATUS_LIST + " " +
+            "ON CONFLICT DO NOTHING";
+
+    private final PurchasedProductRepository purchasedProductRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean hasPurchased(Long userId, Long productId) {
+        return purchasedProductRepository.existsById(new PurchasedProductId(userId, productId));
+    }
+
+    /**
+     * Record or revoke the order's products when it moves into or out of a purchased status
+     * - Must be called in the transaction that changes the status
+     */
+    public void onOrderStatusChanged(Order order, OrderStatus previousStatus, OrderStatus newStatus) {
+        boolean wasPurchased = previousStatus != null && PURCHASED_STATUSES.contains(previousStatus);
+        boolean isPurchased = newStatus != null && PURCHASED_STATUSES.contains(newStatus);
+        if (wasPurchased == isPurchased || order.getUser() == null) {
+            return;
+        }
+        if (isPurchased) {
+            jdbcTemplate.update(RECORD_ORDER_SQL, order.getId());
+        } else {
+            jdbcTemplate.update(REVOKE_ORDER_SQL, order.getUser().getId(), order.getId(), order.getId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        boolean empty = jdbcTemplate.queryForList("SELECT 1 FROM purchased_products LIMIT 1").isEmpty();
+        if (empty) {
+            jdbcTemplate.update(BACKFILL_SQL);
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package com.shopapplication.service;
 
+import com.shopapplication.dto.PageResponse;
 import com.shopapplication.dto.ReviewRequest;
 import com.shopapplication.dto.ReviewResponse;
 import com.shopapplication.models.*;
 import com.shopapplication.repository.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,13 +23,22 @@ public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
-    private final OrderRepository orderRepository;
     private final NotificationService notificationService;
+    private final DashboardAggregateStore dashboardAggregateStore;
+    private final PurchasedProductService purchasedProductService;
+    private final CurrentUserProvider currentUserProvider;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductFacetIndex productFacetIndex;
+
+    @Value("${reviews.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${reviews.page.max-size:100}")
+    private int maxPageSize;
 
     /**
      * Create a review for a purchased product
-     * - Validates user has purchased the product
+     * - Validates user has purchased the product (one lookup in purchased_products)
      * - Ensures user hasn't already reviewed this product
      * - Validates rating is between 1-5
      */
@@ -44,7 +56,7 @@ public class ReviewService {
         }
 
         // Validate user has purchased this product
-        if (!hasUserPurchasedProduct(user.getId(), request.getProductId())) {
+        if (!purchasedProductService.hasPurchased(user.getId(), request.getProductId())) {
             throw new RuntimeException("You can only review products you have purchased");
         }
 
@@ -63,6 +75,8 @@ public class ReviewService {
                 .build();
 
         Review savedReview = reviewRepository.save(review);
+        applyRatingChange(product.getId(), null, savedReview.getRating());
+        dashboardAggregateStore.onReviewCreated(savedReview);
 
         // Send notification to admins
         notificationService.notifyAdminsAboutNewReview(
@@ -95,6 +109,8 @@ public class ReviewService {
             if (request.getRating() < 1 || request.getRating() > 5) {
                 throw new RuntimeException("Rating must be between 1 and 5");
             }
+            applyRatingChange(review.getProduct().getId(), review.getRating(), request.getRating());
+            dashboardAggregateStore.onReviewRatingChanged(review.getRating(), request.getRating());
             review.setRating(request.getRating());
         }
 
@@ -124,6 +140,8 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        applyRatingChange(review.getProduct().getId(), review.getRating(), null);
+        dashboardAggregateStore.onReviewDeleted(review);
     }
 
     /**
@@ -145,17 +163,23 @@ public class ReviewService {
     /**
      * Get user's own reviews
      */
-    public List<ReviewResponse> getUserReviews() {
+    public PageResponse<ReviewResponse> getUserReviews(int page, int size) {
         User user = getCurrentUser();
-
-        List<Review> reviews = reviewRepository.findAll().stream()
-                .filter(review -> review.getUser().getId().equals(user.getId()))
-                .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
-                .collect(Collectors.toList());
-
-        return reviews.stream()
-                .map(this::convertToReviewResponse)
-                .collect(Collectors.toList());
+        if (page < 0) {
+            throw new RuntimeException("Page must be 0 or greater");
+        }
+        int pageSize = size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        Page<Review> reviews = reviewRepository.findByUserId(user.getId(), PageRequest.of(page, pageSize));
+        return PageResponse.<ReviewResponse>builder()
+                .items(reviews.getContent().stream()
+                        .map(this::convertToReviewResponse)
+                        .collect(Collectors.toList()))
+                .page(reviews.getNumber())
+                .size(reviews.getSize())
+                .totalElements(reviews.getTotalElements())
+                .totalPages(reviews.getTotalPages())
+                .build();
     }
 
     /**
@@ -169,56 +193,40 @@ public class ReviewService {
     }
 
     /**
-     * Get average rating for a product
+     * Get average rating for a product (kept on the product row, no reviews are read)
      */
     public Double getProductAverageRating(Long productId) {
-        List<Review> reviews = reviewRepository.findByProductId(productId);
-        
-        if (reviews.isEmpty()) {
-            return 0.0;
-        }
-
-        double sum = reviews.stream()
-                .mapToInt(Review::getRating)
-                .sum();
-
-        return sum / reviews.size();
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        return product.getRating() != null ? product.getRating().doubleValue() : 0.0;
     }
 
     // Helper methods
 
     /**
-     * Check if user has purchased a product
+     * Move one review between rating buckets on its product (null = no rating on that side)
      */
-    private boolean hasUserPurchasedProduct(Long userId, Long productId) {
-        List<Order> userOrders = orderRepository.findByUserOrderByCreatedAtDesc(
-                userRepository.findById(userId)
-                        .orElseThrow(() -> new RuntimeException("User not found"))
-        );
-
-        // Check if any order contains the product and is paid/shipped/delivered
-        for (Order order : userOrders) {
-            if (order.getStatus() == OrderStatus.PAID || 
-                order.getStatus() == OrderStatus.SHIPPED || 
-                order.getStatus() == OrderStatus.DELIVERED) {
-                
-                boolean hasProduct = order.getOrderItems().stream()
-                        .anyMatch(item -> item.getProduct().getId().equals(productId));
-                
-                if (hasProduct) {
-                    return true;
-                }
-            }
+    private void applyRatingChange(Long productId, Integer oldRating, Integer newRating) {
+        if (Objects.equals(oldRating, newRating)) {
+            return;
         }
-
-        return false;
+        int[] stars = new int[6];
+        if (oldRating != null) {
+            stars[oldRating]--;
+        }
+        if (newRating != null) {
+            stars[newRating]++;
+        }
+        int countDelta = (newRating != null ? 1 : 0) - (oldRating != null ? 1 : 0);
+        long sumDelta = (newRating != null ? newRating : 0) - (oldRating != null ? oldRating : 0);
+        productRepository.applyRatingDelta(productId, countDelta, sumDelta,
+                stars[1], stars[2], stars[3], stars[4], stars[5]);
+        productCatalogCache.evictRating(productId);
+        productFacetIndex.adjustRating(productId, countDelta, sumDelta);
     }
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
     }
 
     private ReviewResponse convertToReviewResponse(Review review) {
@@ -0,0 +1,84 @@
+package com.shopapplication.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ids for rows written with plain JDBC into tables whose entities use pooled sequences
+ * - Every sequence below increments by ALLOCATION_SIZE; a value v reserves the ids (v - ALLOCATION_SIZE, v],
+ *   the same way Hibernate's pooled optimizer reads it, so JDBC writers and Hibernate never hand out the same id
+ * - At startup each sequence is moved past the ids already in its table (rows created while the ids
+ *   were IDENTITY columns)
+ */
+@Component
+public class SequenceIdAllocator {
+
+    // Must match allocationSize of the @SequenceGenerator on each entity
+    static final int ALLOCATION_SIZE = 50;
+
+    public static final String ORDERS_SEQUENCE = "orders_seq";
+    public static final String ORDER_ITEMS_SEQUENCE = "order_items_seq";
+    public static final String NOTIFICATIONS_SEQUENCE = "notifications_seq";
+    public static final String PAYMENTS_SEQUENCE = "payments_seq";
+    public static final String CART_ITEMS_SEQUENCE = "cart_items_seq";
+
+    // sequence -> table it assigns ids for
+    private static final Map<String, String> TABLES = Map.of(
+            ORDERS_SEQUENCE, "orders",
+            ORDER_ITEMS_SEQUENCE, "order_items",
+            NOTIFICATIONS_SEQUENCE, "notifications",
+            PAYMENTS_SEQUENCE, "payments",
+            CART_ITEMS_SEQUENCE, "cart_items");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    // Taking the EntityManagerFactory also makes sure the schema (and the sequences) exist before align()
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    /**
+     * Allocate count ids from the sequence, in ascending order
+     */
+    public List<Long> allocate(String sequence, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            long high = nextValue(sequence);
+            for (long id = Math.max(high - ALLOCATION_SIZE + 1, 1); id <= high && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @PostConstruct
+    public void align() {
+        TABLES.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            long existing = maxId != null ? maxId : 0;
+            // Only ever moves a sequence forward
+            if (nextValue(sequence) - ALLOCATION_SIZE < existing) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (existing + ALLOCATION_SIZE));
+            }
+        });
+    }
+
+    private long nextValue(String sequence) {
+        Long value = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        if (value == null) {
+            throw new IllegalStateException("Sequence " + sequence + " returned no value");
+        }
+        return value;
+    }
+}
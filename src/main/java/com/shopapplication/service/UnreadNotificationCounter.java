@@ -0,0 +1,67 @@
+package com.shopapplication.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopapplication.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread notification counts per user and per admin, kept in memory for the notification badge
+ * - Loaded with one COUNT query on first access, then adjusted as notifications are created, read or deleted
+ * - Adjustments are applied once the surrounding transaction commits
+ * - Entries expire after a while, so any drift (e.g. a count loaded while a write was in flight) heals itself
+ */
+@Component
+public class UnreadNotificationCounter {
+
+    private final NotificationRepository notificationRepository;
+    private final Cache<Long, AtomicLong> users;
+    private final Cache<Long, AtomicLong> admins;
+
+    public UnreadNotificationCounter(NotificationRepository notificationRepository,
+                                     @Value("${notifications.unread-cache.ttl-minutes:10}") long ttlMinutes,
+                                     @Value("${notifications.unread-cache.max-size:10000}") long maxSize) {
+        this.notificationRepository = notificationRepository;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(maxSize)
+                .build();
+        this.admins = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public long getForUser(Long userId) {
+        return users.get(userId, id -> new AtomicLong(notificationRepository.countByUserIdAndIsReadFalse(id))).get();
+    }
+
+    public long getForAdmin(Long adminId) {
+        return admins.get(adminId, id -> new AtomicLong(notificationRepository.countByAdminIdAndIsReadFalse(id))).get();
+    }
+
+    /**
+     * Add delta (negative when notifications are read or deleted) to the user's count
+     */
+    public void adjustUser(Long userId, long delta) {
+        TransactionCallbacks.afterCommit(() -> adjust(users, userId, delta));
+    }
+
+    public void adjustAdmin(Long adminId, long delta) {
+        TransactionCallbacks.afterCommit(() -> adjust(admins, adminId, delta));
+    }
+
+    // Internal helpers
+
+    private static void adjust(Cache<Long, AtomicLong> counts, Long ownerId, long delta) {
+        // Counts that are not loaded are left alone; the next read loads the committed value
+        AtomicLong count = counts.getIfPresent(ownerId);
+        if (count != null && count.addAndGet(delta) < 0) {
+            counts.invalidate(ownerId);
+        }
+    }
+}
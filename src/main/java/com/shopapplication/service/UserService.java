@@ -6,8 +6,6 @@ import com.shopapplication.dto.UserProfileResponse;
 import com.shopapplication.models.User;
 import com.shopapplication.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -17,6 +15,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CurrentUserProvider currentUserProvider;
 
     public UserProfileResponse getProfile() {
         User user = getCurrentUser();
@@ -44,7 +43,7 @@ public class UserService {
     }
 
     public UserProfileResponse updateProfile(UpdateProfileRequest request) {
-        User user = getCurrentUser();
+        User user = getCurrentUserForUpdate();
         
         if (request.getUsername() != null && !request.getUsername().trim().isEmpty()) {
             // Check if username is already taken by another user
@@ -61,6 +60,7 @@ public class UserService {
         
         user.setUpdatedAt(java.time.LocalDateTime.now());
         userRepository.save(user);
+        currentUserProvider.invalidate(user.getEmail());
         
         return UserProfileResponse.builder()
                 .id(user.getId())
@@ -73,7 +73,7 @@ public class UserService {
     }
 
     public void changePassword(ChangePasswordRequest request) {
-        User user = getCurrentUser();
+        User user = getCurrentUserForUpdate();
         
         // Verify current password
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
@@ -93,12 +93,18 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setUpdatedAt(java.time.LocalDateTime.now());
         userRepository.save(user);
+        currentUserProvider.invalidate(user.getEmail());
     }
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
+        return currentUserProvider.getCurrentUser();
+    }
+
+    /**
+     * Fresh copy of the current user for modification, so the shared cached principal is never mutated
+     */
+    private User getCurrentUserForUpdate() {
+        return userRepository.findById(getCurrentUser().getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 }
@@ -0,0 +1,282 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.Cart;
+import com.shopapplication.models.CartItem;
+import com.shopapplication.models.Product;
+import com.shopapplication.models.User;
+import com.shopapplication.repository.CartItemRepository;
+import com.shopapplication.repository.CartRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.Driver;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartStoreTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CartRepository cartRepository;
+    private CartItemRepository cartItemRepository;
+    private CartStore cartStore;
+    private SimpleDriverDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private final Map<Long, Product> products = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SimpleDriverDataSource(new Driver(),
+                "jdbc:h2:mem:carts-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(150), stock INT)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (id BIGINT PRIMARY KEY, cart_id BIGINT, " +
+                "product_id BIGINT REFERENCES products (id), quantity INT)");
+        jdbcTemplate.execute("CREATE SEQUENCE cart_items_seq START WITH 100 INCREMENT BY 50");
+
+        entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices().getDialect()).thenReturn(new H2Dialect());
+
+        cartRepository = mock(CartRepository.class);
+        cartItemRepository = mock(CartItemRepository.class);
+        cartStore = cartStore(100);
+    }
+
+    @Test
+    void flushWritesOnlyTheDifferenceAsInsertsUpdatesAndDeletes() {
+        Product kept = product(1L);
+        Product removed = product(2L);
+        Product added = product(3L);
+        User user = userWithCart(1L, 10L, Map.of(kept, 1, removed, 2));
+
+        cartStore.update(user, cart -> {
+            cart.putLine(CartStore.CartLine.of(kept, 3));
+            cart.removeLine(removed.getId());
+            cart.putLine(CartStore.CartLine.of(added, 1));
+        });
+        cartStore.flushAll();
+
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(1L, 3, 3L, 1));
+        // The existing row was updated in place, the new one got a sequence id
+        assertThat(jdbcTemplate.queryForObject("SELECT id FROM cart_items WHERE product_id = 1", Long.class)).isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT id FROM cart_items WHERE product_id = 3", Long.class)).isEqualTo(51L);
+    }
+
+    @Test
+    void unchangedCartIsNotWrittenAgain() {
+        Product product = product(1L);
+        User user = userWithCart(1L, 10L, Map.of(product, 1));
+        cartStore.get(user);
+
+        // A row changed behind the store's back is left alone as long as the cart is clean
+        jdbcTemplate.update("UPDATE cart_items SET quantity = 7 WHERE product_id = 1");
+        cartStore.flushAll();
+
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(1L, 7));
+    }
+
+    @Test
+    void failingCartDoesNotHoldBackTheOthers() {
+        Product product = product(1L);
+        Product missing = Product.builder().id(99L).name("Missing").stock(5).build();
+        User broken = userWithCart(1L, 10L, Map.of());
+        User healthy = userWithCart(2L, 20L, Map.of());
+
+        cartStore.update(broken, cart -> cart.putLine(CartStore.CartLine.of(missing, 1)));
+        cartStore.update(healthy, cart -> cart.putLine(CartStore.CartLine.of(product, 2)));
+        cartStore.flushAll();
+
+        assertThat(storedQuantities(20L)).isEqualTo(Map.of(1L, 2));
+        assertThat(storedQuantities(10L)).isEmpty();
+        // Alone (as before checkout) the failure is reported to the caller
+        assertThatThrownBy(() -> cartStore.flush(broken.getId())).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void removedProductLeavesEveryCart() {
+        Product kept = product(1L);
+        Product deleted = product(2L);
+        User first = userWithCart(1L, 10L, Map.of(kept, 1, deleted, 1));
+        User second = userWithCart(2L, 20L, Map.of(deleted, 4));
+        cartStore.get(first);
+        cartStore.get(second);
+
+        cartStore.removeProduct(deleted.getId());
+        jdbcTemplate.update("DELETE FROM products WHERE id = 2");
+        cartStore.update(first, cart -> cart.putLine(CartStore.CartLine.of(kept, 2)));
+        cartStore.flushAll();
+
+        assertThat(cartStore.get(first).lines()).extracting(CartStore.CartLine::productId).containsExactly(1L);
+        assertThat(cartStore.get(second).lines()).isEmpty();
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(1L, 2));
+        assertThat(storedQuantities(20L)).isEmpty();
+    }
+
+    @Test
+    void evictAfterCheckoutDropsTheCartWhenNothingChanged() {
+        Product product = product(1L);
+        User user = userWithCart(1L, 10L, Map.of(product, 1));
+        cartStore.get(user);
+
+        cartStore.flush(user.getId());
+        cartStore.evict(user.getId(), checkout(readCart(10L)));
+        cartStore.get(user);
+
+        // Reloaded from the database
+        verify(cartRepository, times(2)).findByUserId(user.getId());
+    }
+
+    @Test
+    void evictAfterCheckoutKeepsChangesMadeSinceTheFlush() {
+        Product ordered = product(1L);
+        Product addedLater = product(2L);
+        User user = userWithCart(1L, 10L, Map.of(ordered, 1));
+        cartStore.get(user);
+
+        cartStore.flush(user.getId());
+        List<long[]> read = readCart(10L);
+        cartStore.update(user, cart -> cart.putLine(CartStore.CartLine.of(addedLater, 3)));
+        cartStore.evict(user.getId(), checkout(read));
+
+        assertThat(cartStore.get(user).lines()).extracting(CartStore.CartLine::productId).containsExactly(2L);
+        cartStore.flushAll();
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(2L, 3));
+    }
+
+    @Test
+    void checkoutKeepsALineFlushedAfterTheCartWasRead() {
+        Product ordered = product(1L);
+        Product addedLater = product(2L);
+        User user = userWithCart(1L, 10L, Map.of(ordered, 1));
+        cartStore.get(user);
+
+        cartStore.flush(user.getId());
+        List<long[]> read = readCart(10L);
+        // Written by the scheduled flush while checkout is still running
+        cartStore.update(user, cart -> cart.putLine(CartStore.CartLine.of(addedLater, 3)));
+        cartStore.flushAll();
+        cartStore.evict(user.getId(), checkout(read));
+
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(2L, 3));
+        assertThat(cartStore.get(user).lines()).extracting(CartStore.CartLine::productId).containsExactly(2L);
+        cartStore.flushAll();
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(2L, 3));
+    }
+
+    @Test
+    void orderedLineChangedSinceCheckoutIsWrittenAgain() {
+        Product product = product(1L);
+        User user = userWithCart(1L, 10L, Map.of(product, 1));
+        cartStore.get(user);
+
+        cartStore.flush(user.getId());
+        List<long[]> read = readCart(10L);
+        cartStore.update(user, cart -> cart.putLine(CartStore.CartLine.of(product, 4)));
+        cartStore.evict(user.getId(), checkout(read));
+        cartStore.flushAll();
+
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(1L, 4));
+    }
+
+    @Test
+    void evictedCartIsWrittenBeforeItIsForgotten() throws InterruptedException {
+        CartStore small = cartStore(1);
+        Product product = product(1L);
+        User user = userWithCart(1L, 10L, Map.of());
+        small.update(user, cart -> cart.putLine(CartStore.CartLine.of(product, 2)));
+
+        // Other users, used more often, push the cart out; it is written on Caffeine's executor
+        for (int i = 0; i < 200 && storedQuantities(10L).isEmpty(); i++) {
+            User other = userWithCart(100L + i, 100L + i, Map.of());
+            for (int access = 0; access < 3; access++) {
+                small.get(other);
+            }
+            Thread.sleep(10);
+        }
+
+        assertThat(storedQuantities(10L)).isEqualTo(Map.of(1L, 2));
+        assertThat(small.get(user).lines()).extracting(CartStore.CartLine::quantity).containsExactly(2);
+    }
+
+    private CartStore cartStore(long maxSize) {
+        return new CartStore(cartRepository, cartItemRepository, jdbcTemplate, mock(DashboardAggregateStore.class),
+                new SequenceIdAllocator(jdbcTemplate, entityManagerFactory),
+                new DataSourceTransactionManager(dataSource), maxSize, 30);
+    }
+
+    private Product product(Long id) {
+        jdbcTemplate.update("INSERT INTO products (id, name, stock) VALUES (?, ?, ?)", id, "Product " + id, 10);
+        Product product = Product.builder().id(id).name("Product " + id).stock(10).build();
+        products.put(id, product);
+        return product;
+    }
+
+    // Stores the cart's rows (ids 1, 2, ...) and makes the repositories read them back from the table
+    private User userWithCart(Long userId, Long cartId, Map<Product, Integer> items) {
+        User user = User.builder().id(userId).build();
+        Cart cart = Cart.builder().id(cartId).user(user).createdAt(LocalDateTime.now()).build();
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+
+        items.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey((a, b) -> a.getId().compareTo(b.getId())))
+                .forEach(entry -> {
+                    Long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM cart_items", Long.class);
+                    jdbcTemplate.update("INSERT INTO cart_items (id, cart_id, product_id, quantity) VALUES (?, ?, ?, ?)",
+                            id, cartId, entry.getKey().getId(), entry.getValue());
+                });
+        when(cartItemRepository.findWithProductByCartId(cartId)).thenAnswer(invocation -> jdbcTemplate.query(
+                "SELECT id, product_id, quantity FROM cart_items WHERE cart_id = ? ORDER BY id",
+                (rs, rowNum) -> CartItem.builder()
+                        .id(rs.getLong("id"))
+                        .cart(cart)
+                        .product(products.get(rs.getLong("product_id")))
+                        .quantity(rs.getInt("quantity"))
+                        .build(),
+                cartId));
+        return user;
+    }
+
+    // The rows checkout reads once the cart is flushed: {id, product id, quantity}
+    private List<long[]> readCart(Long cartId) {
+        return jdbcTemplate.query("SELECT id, product_id, quantity FROM cart_items WHERE cart_id = ?",
+                (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("product_id"), rs.getInt("quantity")}, cartId);
+    }
+
+    // What checkout does with those rows when the order commits; returns the ordered quantities
+    private Map<Long, Integer> checkout(List<long[]> rows) {
+        Map<Long, Integer> ordered = new HashMap<>();
+        for (long[] row : rows) {
+            jdbcTemplate.update("DELETE FROM cart_items WHERE id = ?", row[0]);
+            ordered.put(row[1], (int) row[2]);
+        }
+        return ordered;
+    }
+
+    private Map<Long, Integer> storedQuantities(Long cartId) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = ?",
+                rs -> {
+                    quantities.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                }, cartId);
+        return quantities;
+    }
+}
@@ -0,0 +1,188 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.OrderItem;
+import com.shopapplication.models.Product;
+import org.h2.Driver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class InventoryReservationServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private InventoryReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new Driver(),
+                "jdbc:h2:mem:inventory-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(150), stock INT)");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        service = new InventoryReservationService(jdbcTemplate, mock(DashboardAggregateStore.class),
+                mock(ProductCatalogCache.class), mock(ProductFacetIndex.class));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        Product product = product(1L, 10);
+        int buyers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < buyers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> order(List.of(item(product, 1))));
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    reserved++;
+                }
+            }
+            assertThat(reserved).isEqualTo(10);
+            assertThat(stockOf(1L)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rollbackGivesTheReservationBack() {
+        Product product = product(1L, 5);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            order(List.of(item(product, 5)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(stockOf(1L)).isEqualTo(5);
+        // The counter was restored too: the full stock can be reserved again
+        transactionTemplate.executeWithoutResult(status -> order(List.of(item(product, 5))));
+        assertThat(stockOf(1L)).isZero();
+    }
+
+    @Test
+    void orderWithOneShortLineReservesNothing() {
+        Product plenty = product(1L, 5);
+        Product scarce = product(2L, 1);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                order(List.of(item(plenty, 2), item(scarce, 2)))))
+                .hasMessageContaining("Insufficient stock");
+
+        assertThat(stockOf(1L)).isEqualTo(5);
+        assertThat(stockOf(2L)).isEqualTo(1);
+        transactionTemplate.executeWithoutResult(status -> order(List.of(item(plenty, 5), item(scarce, 1))));
+        assertThat(stockOf(1L)).isZero();
+        assertThat(stockOf(2L)).isZero();
+    }
+
+    @Test
+    void counterIsSeededFromTheTableNotFromAStaleEntity() {
+        product(1L, 0);
+        // Loaded by checkout before an admin restock committed
+        Product stale = Product.builder().id(1L).name("Product 1").stock(0).build();
+        jdbcTemplate.update("UPDATE products SET stock = 100 WHERE id = 1");
+
+        transactionTemplate.executeWithoutResult(status -> order(List.of(item(stale, 5))));
+
+        assertThat(stockOf(1L)).isEqualTo(95);
+    }
+
+    @Test
+    void counterThatLooksShortIsReseededBeforeRefusing() {
+        Product product = product(1L, 1);
+        transactionTemplate.executeWithoutResult(status -> order(List.of(item(product, 1))));
+        // Restocked without the counter being dropped
+        jdbcTemplate.update("UPDATE products SET stock = 10 WHERE id = 1");
+
+        transactionTemplate.executeWithoutResult(status -> order(List.of(item(product, 4))));
+
+        assertThat(stockOf(1L)).isEqualTo(6);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                order(List.of(item(product, 7)))))
+                .hasMessageContaining("Insufficient stock");
+        assertThat(stockOf(1L)).isEqualTo(6);
+    }
+
+    @Test
+    void reservingOutsideATransactionIsRejected() {
+        Product product = product(1L, 5);
+
+        assertThatThrownBy(() -> service.reserve(List.of(item(product, 1))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(stockOf(1L)).isEqualTo(5);
+    }
+
+    @Test
+    void tableIsOnlyWrittenWhenTheReservationIsWritten() {
+        Product product = product(1L, 5);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            InventoryReservationService.Reservation reservation = service.reserve(List.of(item(product, 2)));
+            assertThat(stockOf(1L)).isEqualTo(5);
+            service.write(reservation);
+        });
+
+        assertThat(stockOf(1L)).isEqualTo(3);
+    }
+
+    @Test
+    void reservationThatIsNeverWrittenFailsTheCommit() {
+        Product product = product(1L, 5);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                service.reserve(List.of(item(product, 5)))))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Rolled back, so the counter still allows the full stock
+        transactionTemplate.executeWithoutResult(status -> order(List.of(item(product, 5))));
+        assertThat(stockOf(1L)).isZero();
+    }
+
+    // What checkout does: reserve early, write last
+    private void order(List<OrderItem> items) {
+        service.write(service.reserve(items));
+    }
+
+    private Product product(Long id, int stock) {
+        jdbcTemplate.update("INSERT INTO products (id, name, stock) VALUES (?, ?, ?)", id, "Product " + id, stock);
+        return Product.builder().id(id).name("Product " + id).stock(stock).build();
+    }
+
+    private static OrderItem item(Product product, int quantity) {
+        return OrderItem.builder().product(product).quantity(quantity).build();
+    }
+
+    private int stockOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, id);
+    }
+}
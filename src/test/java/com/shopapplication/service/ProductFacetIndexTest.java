@@ -0,0 +1,72 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.Product;
+import com.shopapplication.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private static final int PRODUCTS = 2500;
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Rows stored out of id order, as a heap table may return them
+        List<Product> table = new ArrayList<>();
+        LongStream.rangeClosed(1, PRODUCTS).forEach(id -> table.add(Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price((double) id)
+                .stock(id % 5 == 0 ? 0 : 10)
+                .category(id % 2 == 0 ? "even" : "odd")
+                .build()));
+        Collections.shuffle(table);
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return table.stream()
+                    .filter(product -> product.getId() > after)
+                    .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                    .limit(limit.max())
+                    .toList();
+        });
+        doCallRealMethod().when(productRepository).forEachInIdOrder(anyInt(), any());
+        index = new ProductFacetIndex(productRepository, new double[]{0, 1000});
+    }
+
+    @Test
+    void rebuildCountsEveryProductExactlyOnceAcrossSeveralPages() {
+        index.rebuild();
+
+        ProductFacetIndex.Result all = index.query(
+                new ProductFacetIndex.Filter(null, null, null, null, null), ProductSort.PRICE_ASC, 0, PRODUCTS * 2);
+        assertThat(all.totalElements()).isEqualTo(PRODUCTS);
+        assertThat(all.productIds()).hasSize(PRODUCTS).doesNotHaveDuplicates().isSorted();
+        assertThat(all.facets().getCategories()).isEqualTo(Map.of("even", 1250L, "odd", 1250L));
+        assertThat(all.facets().getInStock()).isEqualTo(2000L);
+
+        ProductFacetIndex.Result odd = index.query(
+                new ProductFacetIndex.Filter(Set.of("odd"), null, null, true, null), ProductSort.PRICE_ASC, 0, PRODUCTS);
+        assertThat(odd.totalElements()).isEqualTo(1000L);
+    }
+}
@@ -0,0 +1,70 @@
+package com.shopapplication.service;
+
+import com.shopapplication.models.Product;
+import com.shopapplication.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private static final int PRODUCTS = 2500;
+
+    private ProductRepository productRepository;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Rows stored out of id order, as a heap table may return them
+        List<Product> table = new ArrayList<>();
+        LongStream.rangeClosed(1, PRODUCTS).forEach(id -> table.add(Product.builder()
+                .id(id).name("Widget " + id).description("sku" + id).category("tools").build()));
+        Collections.shuffle(table);
+
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return table.stream()
+                    .filter(product -> product.getId() > after)
+                    .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                    .limit(limit.max())
+                    .toList();
+        });
+        doCallRealMethod().when(productRepository).forEachInIdOrder(anyInt(), any());
+        index = new ProductSearchIndex(productRepository);
+    }
+
+    @Test
+    void rebuildIndexesEveryProductExactlyOnceAcrossSeveralPages() {
+        index.rebuild();
+
+        List<Long> all = index.search("widget", PRODUCTS * 2);
+        assertThat(all).hasSize(PRODUCTS).doesNotHaveDuplicates();
+        assertThat(index.search("sku1", 10)).startsWith(1L);
+        assertThat(index.search("sku2500", 10)).containsExactly(2500L);
+    }
+
+    @Test
+    void rebuildReplacesThePreviousContents() {
+        index.index(Product.builder().id(9999L).name("Leftover widget").build());
+
+        index.rebuild();
+
+        assertThat(index.search("leftover", 10)).isEmpty();
+        assertThat(index.search("widget", PRODUCTS * 2)).hasSize(PRODUCTS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.shopapplication.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.Driver;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SequenceIdAllocatorTest {
+
+    private static final List<String> TABLES = List.of("orders", "order_items", "notifications", "payments", "cart_items");
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new Driver(),
+                "jdbc:h2:mem:sequences-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        for (String table : TABLES) {
+            jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY)");
+            // As Hibernate creates them for allocationSize = 50
+            jdbcTemplate.execute("CREATE SEQUENCE " + table + "_seq START WITH 1 INCREMENT BY 50");
+        }
+
+        entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices().getDialect()).thenReturn(new H2Dialect());
+    }
+
+    @Test
+    void allocatesAscendingIdsAcrossSeveralBlocks() {
+        SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate, entityManagerFactory);
+
+        List<Long> first = allocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE, 120);
+        List<Long> second = allocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE, 3);
+
+        assertThat(first).hasSize(120).isSorted().doesNotHaveDuplicates();
+        assertThat(second).hasSize(3).isSorted();
+        assertThat(second.get(0)).isGreaterThan(first.get(first.size() - 1));
+    }
+
+    @Test
+    void neverHandsOutAnIdTwiceUnderConcurrency() throws Exception {
+        // Two application instances plus Hibernate's pooled optimizer drawing from the same sequence
+        SequenceIdAllocator one = new SequenceIdAllocator(jdbcTemplate, entityManagerFactory);
+        SequenceIdAllocator two = new SequenceIdAllocator(jdbcTemplate, entityManagerFactory);
+        Set<Long> handedOut = ConcurrentHashMap.newKeySet();
+        List<Long> duplicates = new ArrayList<>();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        List<Long> ids;
+                        if (worker == 0) {
+                            long high = jdbcTemplate.queryForObject(
+                                    "SELECT NEXT VALUE FOR " + SequenceIdAllocator.ORDERS_SEQUENCE, Long.class);
+                            ids = new ArrayList<>();
+                            // The first value of a fresh sequence (1) only covers id 1, as in the allocator
+                            for (long id = Math.max(high - SequenceIdAllocator.ALLOCATION_SIZE + 1, 1); id <= high; id++) {
+                                ids.add(id);
+                            }
+                        } else {
+                            SequenceIdAllocator allocator = worker % 2 == 0 ? one : two;
+                            ids = allocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE,
+                                    ThreadLocalRandom.current().nextInt(1, 120));
+                        }
+                        for (Long id : ids) {
+                            if (!handedOut.add(id)) {
+                                synchronized (duplicates) {
+                                    duplicates.add(id);
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : workers) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(duplicates).isEmpty();
+        assertThat(handedOut).allMatch(id -> id > 0);
+    }
+
+    @Test
+    void alignMovesSequencesPastExistingRows() {
+        for (long id = 1; id <= 480; id++) {
+            jdbcTemplate.update("INSERT INTO orders (id) VALUES (?)", id);
+        }
+        jdbcTemplate.update("INSERT INTO payments (id) VALUES (?)", 7L);
+        SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate, entityManagerFactory);
+
+        allocator.align();
+
+        assertThat(allocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE, 60)).allMatch(id -> id > 480);
+        assertThat(allocator.allocate(SequenceIdAllocator.PAYMENTS_SEQUENCE, 60)).allMatch(id -> id > 7);
+        Set<Long> cartItemIds = new HashSet<>(allocator.allocate(SequenceIdAllocator.CART_ITEMS_SEQUENCE, 10));
+        assertThat(cartItemIds).hasSize(10);
+    }
+}